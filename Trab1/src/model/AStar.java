@@ -0,0 +1,150 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A* search guided by the number of boat trips still needed (see {@link #estimate(Instance, long)}). The estimate
+ * never exceeds the real number of trips and drops by at most one per trip, so each state is expanded once and the
+ * first time the final state is expanded its path is the shortest one. The open set is a binary heap of longs: the
+ * f(n) of a state on the high bits and its position on the {@link StateTable} on the low bits.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jul 13.
+ */
+public class AStar implements Strategy {
+
+    /**
+     * Open set of the current search.
+     */
+    private long[] heap;
+
+    private int heapSize;
+
+    /**
+     * Lower bound of the number of trips from a state to the final one. Each trip to the right takes at most
+     * 'capacity' people and each trip back brings at least one, so n people on the left need at least
+     * 2 * ceil((n - capacity) / (capacity - 1)) + 1 trips when the boat is on the left, and one more trip (bringing
+     * someone back) when the boat is on the right.
+     *
+     * @param instance The instance.
+     * @param state Packed state.
+     * @return The number of trips.
+     */
+    static int estimate(final Instance instance, final long state) {
+        int here = Instance.getM(state) + Instance.getC(state);
+        int total = instance.getM() + instance.getC();
+        if (Instance.getMargin(state) == State.Margin.Left) {
+            return trips(here, instance.getCapacity());
+        }
+        int left = total - here;
+        return left == 0 ? 0 : 1 + trips(left + 1, instance.getCapacity());
+    }
+
+    /**
+     * @return Number of trips to take n people from the left, with the boat on the left.
+     */
+    private static int trips(final int n, final int capacity) {
+        if (n == 0) {
+            return 0;
+        }
+        if (n <= capacity || capacity == 1) {
+            return 1;
+        }
+        // (n - 2) / (capacity - 1) is ceil((n - capacity) / (capacity - 1))
+        return 2 * ((n - 2) / (capacity - 1)) + 1;
+    }
+
+    @Override
+    public Solution solve(final Instance instance) {
+        long startTime = System.nanoTime();
+        long target = instance.getFinal();
+        StateTable table = new StateTable();
+        int[] g = new int[64];
+        BitSet closed = new BitSet();
+        int expanded = 0;
+        int found = -1;
+
+        heap = new long[64];
+        heapSize = 0;
+        int start = table.add(instance.getInitial(), -1, -1);
+        g[start] = 0;
+        push(estimate(instance, instance.getInitial()), start);
+
+        while (heapSize > 0) {
+            long top = pop();
+            int position = (int) top;
+            if (closed.get(position)) {
+                continue; // stale entry: the state was pushed again with a lower f(n)
+            }
+            long state = table.getState(position);
+            if (state == target) {
+                found = position;
+                break;
+            }
+            closed.set(position);
+            expanded++;
+
+            for (int operator = 0; operator < instance.getOperators(); operator++) {
+                long child = instance.apply(state, operator);
+                if (child < 0) {
+                    continue;
+                }
+                int next = table.add(child, position, operator);
+                if (next >= 0) {
+                    if (next == g.length) {
+                        g = Arrays.copyOf(g, next * 2);
+                    }
+                } else {
+                    next = table.indexOf(child);
+                    if (closed.get(next) || g[next] <= g[position] + 1) {
+                        continue;
+                    }
+                    table.setParent(next, position, operator);
+                }
+                g[next] = g[position] + 1;
+                push(g[next] + estimate(instance, child), next);
+            }
+        }
+
+        long time = System.nanoTime() - startTime;
+        if (found < 0) {
+            return new Solution(new ArrayList<>(), new ArrayList<>(), expanded, time);
+        }
+        return table.solution(instance, found, expanded, time);
+    }
+
+    private void push(final int f, final int position) {
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, heapSize * 2);
+        }
+        long key = (long) f << 32 | position;
+        int i = heapSize++;
+        while (i > 0 && heap[(i - 1) / 2] > key) {
+            heap[i] = heap[(i - 1) / 2];
+            i = (i - 1) / 2;
+        }
+        heap[i] = key;
+    }
+
+    private long pop() {
+        long top = heap[0];
+        long last = heap[--heapSize];
+        int i = 0;
+        while (2 * i + 1 < heapSize) {
+            int child = 2 * i + 1;
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (heap[child] >= last) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return top;
+    }
+
+}
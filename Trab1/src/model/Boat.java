@@ -9,11 +9,6 @@ import java.util.Objects;
  */
 public class Boat {
 
-    /**
-     * Max number of passengers.
-     */
-    private static final int MAX = 2;
-
     private final int m, c;
 
     /**
@@ -31,13 +26,14 @@ public class Boat {
      * Returns if this operator is valid or not. The boat has a max capability that must be respected and the boat must
      * never be empty.
      *
+     * @param capacity Max number of passengers.
      * @return If the number of missionaries is the boat is equals or greater than cannibals - true, else - false.
      */
-    public boolean isValid() {
+    public boolean isValid(final int capacity) {
         if (m < 0 || c < 0) {
             return false;
         }
-        if (m + c > 0 && m + c <= MAX) {
+        if (m + c > 0 && m + c <= capacity) {
             if (m == 0) {
                 return true;
             }
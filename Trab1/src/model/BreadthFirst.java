@@ -0,0 +1,48 @@
+package model;
+
+import java.util.ArrayList;
+
+/**
+ * Breadth-first search: the states are expanded by the order they are reached, so the first path to the final state
+ * has the fewest crossings. The queue is the {@link StateTable} itself, read from the first state to the last one.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jul 13.
+ */
+public class BreadthFirst implements Strategy {
+
+    @Override
+    public Solution solve(final Instance instance) {
+        long startTime = System.nanoTime();
+        long target = instance.getFinal();
+        StateTable table = new StateTable();
+        int expanded = 0;
+
+        int found = table.add(instance.getInitial(), -1, -1);
+        if (instance.getInitial() != target) {
+            found = -1;
+        }
+        for (int head = 0; found < 0 && head < table.size(); head++) {
+            long state = table.getState(head);
+            expanded++;
+            for (int operator = 0; operator < instance.getOperators(); operator++) {
+                long child = instance.apply(state, operator);
+                if (child < 0) {
+                    continue;
+                }
+                int position = table.add(child, head, operator);
+                if (child == target && position >= 0) {
+                    found = position;
+                    break;
+                }
+            }
+        }
+
+        long time = System.nanoTime() - startTime;
+        if (found < 0) {
+            return new Solution(new ArrayList<>(), new ArrayList<>(), expanded, time);
+        }
+        return table.solution(instance, found, expanded, time);
+    }
+
+}
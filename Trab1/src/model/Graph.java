@@ -1,14 +1,19 @@
 package model;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 
 /**
+ * Graph of the states reachable from a first state. Each vertex is kept once, indexed by its packed state, together
+ * with the list of its outgoing edges: building the graph takes time linear on its size and the edges of a vertex are
+ * found without looking at the others.
  *
  * @author João Bolsson (jvmarques@inf.ufsm.br)
- * @version 2019, Apr 10.
+ * @version 2019, Jul 10.
  */
 public class Graph {
 
@@ -17,6 +22,16 @@ public class Graph {
     private final List<Edge> edges = new ArrayList<>();
     private final List<Vertex> vertices = new ArrayList<>();
 
+    /**
+     * Packed states of the vertices: the index of a state is the position of its vertex on {@link #vertices}.
+     */
+    private final LongHashSet index = new LongHashSet(16);
+
+    /**
+     * Outgoing edges of each vertex, by position on {@link #vertices}, in the order of the operators.
+     */
+    private final List<List<Edge>> adjacency = new ArrayList<>();
+
     public Graph(final Vertex first) {
         this.first = first;
     }
@@ -29,30 +44,68 @@ public class Graph {
         return vertices;
     }
 
-    public void build() {
-        add(first);
+    /**
+     * @param v Given vertex.
+     * @return If the graph has a vertex with the same state - true, else - false.
+     */
+    public boolean contains(final Vertex v) {
+        return index.contains(v.pack());
     }
 
-    private void add(final Vertex v) {
-        if (!vertices.contains(v) && v != null) {
-            vertices.add(v);
+    /**
+     * @param v Given vertex.
+     * @return The position of the vertex with the same state on {@link #getVertices()} or -1 if it is not on the
+     * graph.
+     */
+    int indexOf(final Vertex v) {
+        return index.indexOf(v.pack());
+    }
 
-            Iterator<Map.Entry<Boat, Vertex>> iterator = v.getNeighbors().entrySet().iterator();
+    /**
+     * Adds all states reachable from the first one. The vertices are visited in depth-first order with an explicit
+     * stack, so the size of the graph is not limited by the call stack.
+     */
+    public void build() {
+        if (first == null || contains(first)) {
+            return;
+        }
+        // the vertices are added to the list when found and expanded when taken from the stack
+        Deque<Vertex> pending = new ArrayDeque<>();
+        add(first);
+        pending.push(first);
 
-            while (iterator.hasNext()) {
-                Map.Entry<Boat, Vertex> next = iterator.next();
+        while (!pending.isEmpty()) {
+            Vertex v = pending.pop();
+            List<Edge> outgoing = adjacency.get(index.indexOf(v.pack()));
 
+            List<Vertex> children = new ArrayList<>();
+            for (Map.Entry<Boat, Vertex> next : v.getNeighbors().entrySet()) {
                 Vertex child = next.getValue();
+                int known = index.indexOf(child.pack());
+                if (known < 0) {
+                    add(child);
+                    children.add(child);
+                } else {
+                    child = vertices.get(known); // the edges point to the vertex already on the graph
+                }
 
                 Edge edge = new Edge(next.getKey(), v, child);
-                if (!edges.contains(edge)) {
-                    edges.add(edge);
-                }
-                add(child);
+                outgoing.add(edge);
+                edges.add(edge);
+            }
+            // reversed, so the first child is visited first
+            for (int i = children.size() - 1; i >= 0; i--) {
+                pending.push(children.get(i));
             }
         }
     }
 
+    private void add(final Vertex v) {
+        index.add(v.pack());
+        vertices.add(v);
+        adjacency.add(new ArrayList<>());
+    }
+
     /**
      * Gets all edges that contains given paramater as origin.
      *
@@ -60,13 +113,15 @@ public class Graph {
      * @return A list with all valid edges.
      */
     public List<Edge> getEdges(final Vertex origin) {
-        List<Edge> list = new ArrayList<>();
+        int position = index.indexOf(origin.pack());
+        return position < 0 ? Collections.emptyList() : Collections.unmodifiableList(getEdges(position));
+    }
 
-        for (Edge e : edges) {
-            if (e.getOrigin().equals(origin)) {
-                list.add(e);
-            }
-        }
-        return list;
+    /**
+     * @param position Position of a vertex on {@link #getVertices()}.
+     * @return The edges that leave the vertex, not copied nor wrapped: must not be changed.
+     */
+    List<Edge> getEdges(final int position) {
+        return adjacency.get(position);
     }
 }
@@ -0,0 +1,118 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Deep search that does not build the graph: the successors of a state are made from the operators when the state is
+ * expanded, the same way {@link Vertex#getNeighbors()} does, but on packed states. Only the current path (the
+ * frontier of the deep search) and the set of packed states already seen are kept, so the search stops at the first
+ * solution without looking at the rest of the state space.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jul 12.
+ */
+public class ImplicitSearch {
+
+    private final Instance instance;
+
+    /**
+     * States on the current path and the next operator to try on each one.
+     */
+    private long[] states = new long[16];
+
+    private int[] operators = new int[16];
+
+    private int depth;
+
+    private final List<Boat> boats = new ArrayList<>();
+
+    private int expanded = 0;
+
+    public ImplicitSearch(final Instance instance) {
+        this.instance = instance;
+    }
+
+    /**
+     * Deep search from the initial state of the instance to its final state.
+     *
+     * @return The path found (empty if there is none).
+     */
+    public List<State> search() {
+        return search(instance.getInitial(), instance.getFinal());
+    }
+
+    /**
+     * Deep search between two states. Each state is visited only once.
+     *
+     * @param start Packed start state.
+     * @param target Packed target state.
+     * @return The states on the first path found, from the start to the target (empty if there is none).
+     */
+    public List<State> search(final long start, final long target) {
+        boats.clear();
+        expanded = 0;
+        LongHashSet visited = new LongHashSet(64);
+        visited.add(start);
+        depth = 0;
+        states[0] = start;
+        operators[0] = 0;
+
+        while (depth >= 0) {
+            long state = states[depth];
+            if (state == target) {
+                return path();
+            }
+            if (operators[depth] == instance.getOperators()) {
+                depth--; // all operators were tried: back to the previous state
+                continue;
+            }
+            if (operators[depth] == 0) {
+                expanded++;
+            }
+            long child = instance.apply(state, operators[depth]++);
+            if (child >= 0 && visited.add(child)) {
+                push(child);
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    private void push(final long state) {
+        depth++;
+        if (depth == states.length) {
+            states = Arrays.copyOf(states, depth * 2);
+            operators = Arrays.copyOf(operators, depth * 2);
+        }
+        states[depth] = state;
+        operators[depth] = 0;
+    }
+
+    private List<State> path() {
+        List<State> path = new ArrayList<>(depth + 1);
+        for (int i = 0; i <= depth; i++) {
+            path.add(instance.toState(states[i]));
+            if (i < depth) {
+                // the operator applied is the last one tried
+                boats.add(instance.getBoats().get(operators[i] - 1));
+            }
+        }
+        return path;
+    }
+
+    /**
+     * @return The boats (operators) of the last path found, in order.
+     */
+    public List<Boat> getBoats() {
+        return boats;
+    }
+
+    /**
+     * @return Number of states expanded by the last search.
+     */
+    public int getExpanded() {
+        return expanded;
+    }
+
+}
@@ -0,0 +1,182 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An instance of the missionaries and cannibals problem: how many of each there are and how many passengers the boat
+ * takes. The states can be packed in a long (see {@link #pack(int, int, State.Margin)}), so searches can keep them in
+ * primitive arrays and sets instead of objects.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jul 11.
+ */
+public class Instance {
+
+    private static final int BITS = 31;
+
+    private static final long MASK = (1L << BITS) - 1;
+
+    private static final long RIGHT = 1L << (2 * BITS);
+
+    private final int m, c, capacity;
+
+    /**
+     * All valid boats (operators).
+     */
+    private final List<Boat> boats;
+
+    /**
+     * Missionaries and cannibals on each boat of {@link #boats}, by position.
+     */
+    private final int[] boatM, boatC;
+
+    /**
+     * Creates an instance.
+     *
+     * @param m Number of missionaries.
+     * @param c Number of cannibals.
+     * @param capacity Max number of passengers of the boat.
+     */
+    public Instance(final int m, final int c, final int capacity) {
+        if (m < 0 || c < 0 || capacity < 1) {
+            throw new IllegalArgumentException("Invalid instance: " + m + ", " + c + ", " + capacity);
+        }
+        this.m = m;
+        this.c = c;
+        this.capacity = capacity;
+
+        // fills the list with valid boats according with parameters.
+        List<Boat> valid = new ArrayList<>();
+        for (int bm = 0; bm <= Math.min(m, capacity); bm++) {
+            for (int bc = 0; bc <= Math.min(c, capacity - bm); bc++) {
+                Boat boat = new Boat(bm, bc);
+                if (boat.isValid(capacity)) {
+                    valid.add(boat);
+                }
+            }
+        }
+        boats = Collections.unmodifiableList(valid);
+        boatM = new int[valid.size()];
+        boatC = new int[valid.size()];
+        for (int i = 0; i < valid.size(); i++) {
+            boatM[i] = valid.get(i).getM();
+            boatC[i] = valid.get(i).getC();
+        }
+    }
+
+    /**
+     * @return The number of missionaries.
+     */
+    public int getM() {
+        return m;
+    }
+
+    /**
+     * @return The number of cannibals.
+     */
+    public int getC() {
+        return c;
+    }
+
+    /**
+     * @return Max number of passengers of the boat.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return All valid boats (operators).
+     */
+    public List<Boat> getBoats() {
+        return boats;
+    }
+
+    /**
+     * Packs a state in a long: the missionaries on the 31 low bits, the cannibals on the next 31 bits and the margin
+     * on the next bit. A packed state is never negative.
+     *
+     * @param m Number of missionaries on the margin.
+     * @param c Number of cannibals on the margin.
+     * @param margin The margin where is the boat.
+     * @return The packed state.
+     */
+    public static long pack(final int m, final int c, final State.Margin margin) {
+        return m | (long) c << BITS | (margin == State.Margin.Right ? RIGHT : 0L);
+    }
+
+    public static int getM(final long state) {
+        return (int) (state & MASK);
+    }
+
+    public static int getC(final long state) {
+        return (int) (state >>> BITS & MASK);
+    }
+
+    public static State.Margin getMargin(final long state) {
+        return (state & RIGHT) != 0 ? State.Margin.Right : State.Margin.Left;
+    }
+
+    /**
+     * @return The packed initial state: everyone and the boat on the left margin.
+     */
+    public long getInitial() {
+        return pack(m, c, State.Margin.Left);
+    }
+
+    /**
+     * @return The packed final state: everyone and the boat on the right margin.
+     */
+    public long getFinal() {
+        return pack(m, c, State.Margin.Right);
+    }
+
+    /**
+     * @return The number of valid boats (operators).
+     */
+    public int getOperators() {
+        return boatM.length;
+    }
+
+    /**
+     * Applies an operator to a packed state, the same way {@link Vertex#canApplyOperator(Boat)} does.
+     *
+     * @param state Packed state.
+     * @param operator Position of the boat on {@link #getBoats()}.
+     * @return The packed state after crossing the river or -1 if the operator can not be applied.
+     */
+    public long apply(final long state, final int operator) {
+        int bm = boatM[operator], bc = boatC[operator];
+        int stayM = getM(state) - bm, stayC = getC(state) - bc;
+        // the people on the other side, plus the ones on the boat
+        int otherM = m - getM(state) + bm, otherC = c - getC(state) + bc;
+        if (stayM < 0 || stayC < 0 || !isValid(stayM, stayC) || !isValid(otherM, otherC)) {
+            return -1;
+        }
+        return pack(otherM, otherC, (state & RIGHT) != 0 ? State.Margin.Left : State.Margin.Right);
+    }
+
+    /**
+     * The same rule of {@link State#isValid()}: the missionaries must never be fewer than the cannibals, unless there
+     * is no missionary.
+     */
+    private static boolean isValid(final int m, final int c) {
+        return m >= c || m == 0;
+    }
+
+    /**
+     * @param state Packed state.
+     * @return The state as an object.
+     */
+    public State toState(final long state) {
+        return new State(getM(state), getC(state), getMargin(state));
+    }
+
+    @Override
+    public String toString() {
+        return "<" + m + ", " + c + ", " + capacity + ">";
+    }
+
+}
@@ -0,0 +1,130 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Iterative deepening: deep searches limited to 0, 1, 2, ... crossings, until one of them reaches the final state, so
+ * the first path found has the fewest crossings. Each search keeps only its current path and the depth where each
+ * state was reached: a state reached again at the same depth or deeper is not expanded again, which keeps every
+ * search linear on the number of states. The searches stop when one of them ends without cutting any path at the
+ * limit: then there is no solution.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jul 13.
+ */
+public class IterativeDeepening implements Strategy {
+
+    /**
+     * States on the current path and the next operator to try on each one.
+     */
+    private long[] states;
+
+    private int[] operators;
+
+    /**
+     * Depth where each state was reached on the current search, by position on {@link #reached}.
+     */
+    private int[] depths;
+
+    private LongHashSet reached;
+
+    private int expanded;
+
+    @Override
+    public Solution solve(final Instance instance) {
+        long startTime = System.nanoTime();
+        states = new long[16];
+        operators = new int[16];
+        depths = new int[64];
+        expanded = 0;
+
+        for (int limit = 0;; limit++) {
+            reached = new LongHashSet(64);
+            int result = search(instance, limit);
+            if (result >= 0) {
+                List<State> path = new ArrayList<>();
+                List<Boat> boats = new ArrayList<>();
+                for (int i = 0; i <= result; i++) {
+                    path.add(instance.toState(states[i]));
+                    if (i < result) {
+                        // the operator applied is the last one tried
+                        boats.add(instance.getBoats().get(operators[i] - 1));
+                    }
+                }
+                return new Solution(path, boats, expanded, System.nanoTime() - startTime);
+            }
+            if (result == -1) {
+                return new Solution(new ArrayList<>(), new ArrayList<>(), expanded, System.nanoTime() - startTime);
+            }
+        }
+    }
+
+    /**
+     * Deep search limited to a number of crossings.
+     *
+     * @param instance The instance.
+     * @param limit Max number of crossings.
+     * @return The depth of the final state, -1 if it can not be reached or -2 if some path was cut at the limit.
+     */
+    private int search(final Instance instance, final int limit) {
+        long target = instance.getFinal();
+        boolean cut = false;
+        int depth = 0;
+        states[0] = instance.getInitial();
+        operators[0] = 0;
+        reach(states[0], 0);
+
+        while (depth >= 0) {
+            long state = states[depth];
+            if (state == target) {
+                return depth;
+            }
+            if (operators[depth] == 0) {
+                if (depth == limit) {
+                    cut = true;
+                    depth--;
+                    continue;
+                }
+                expanded++;
+            }
+            if (operators[depth] == instance.getOperators()) {
+                depth--; // all operators were tried: back to the previous state
+                continue;
+            }
+            long child = instance.apply(state, operators[depth]++);
+            if (child >= 0 && reach(child, depth + 1)) {
+                depth++;
+                if (depth == states.length) {
+                    states = Arrays.copyOf(states, depth * 2);
+                    operators = Arrays.copyOf(operators, depth * 2);
+                }
+                states[depth] = child;
+                operators[depth] = 0;
+            }
+        }
+        return cut ? -2 : -1;
+    }
+
+    /**
+     * Records that a state was reached at a depth.
+     *
+     * @return If the state was not reached before at the same depth or less - true, else - false.
+     */
+    private boolean reach(final long state, final int depth) {
+        int position = reached.indexOf(state);
+        if (position < 0) {
+            reached.add(state);
+            position = reached.size() - 1;
+            if (position == depths.length) {
+                depths = Arrays.copyOf(depths, position * 2);
+            }
+        } else if (depths[position] <= depth) {
+            return false;
+        }
+        depths[position] = depth;
+        return true;
+    }
+
+}
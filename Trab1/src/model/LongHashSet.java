@@ -0,0 +1,127 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Set of non negative longs with open addressing and linear probing: the keys are kept in a long array, without an
+ * object per key. Each key gets the number of keys added before it, so the set also maps the keys to dense indexes.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jul 11.
+ */
+public class LongHashSet {
+
+    private static final long EMPTY = -1L;
+
+    private long[] keys;
+
+    private int[] indexes;
+
+    private int size = 0;
+
+    /**
+     * Creates an empty set.
+     *
+     * @param expected Number of keys expected: the set grows only after it.
+     */
+    public LongHashSet(final int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        keys = new long[capacity];
+        indexes = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Spreads the bits of a key (SplitMix64 finalizer), so keys that differ only on the high bits do not collide.
+     */
+    private static int hash(long key) {
+        key = (key ^ (key >>> 30)) * 0xbf58476d1ce4e5b9L;
+        key = (key ^ (key >>> 27)) * 0x94d049bb133111ebL;
+        return (int) (key ^ (key >>> 31));
+    }
+
+    /**
+     * Gets the position of a key on the table or of the empty slot where it would be.
+     */
+    private int slot(final long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Adds a key.
+     *
+     * @param key Key to add, not negative.
+     * @return If the key was not on the set - true, else - false.
+     */
+    public boolean add(final long key) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Invalid key: " + key);
+        }
+        int slot = slot(key);
+        if (keys[slot] == key) {
+            return false;
+        }
+        keys[slot] = key;
+        indexes[slot] = size++;
+        if (size * 2 > keys.length) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * @param key Given key.
+     * @return If the key is on the set - true, else - false.
+     */
+    public boolean contains(final long key) {
+        return key >= 0 && keys[slot(key)] == key;
+    }
+
+    /**
+     * @param key Given key.
+     * @return The number of keys added before the given one or -1 if it is not on the set.
+     */
+    public int indexOf(final long key) {
+        if (key < 0) {
+            return -1;
+        }
+        int slot = slot(key);
+        return keys[slot] == key ? indexes[slot] : -1;
+    }
+
+    /**
+     * @return Number of keys on the set.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all keys.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldIndexes = indexes;
+        keys = new long[oldKeys.length * 2];
+        indexes = new int[keys.length];
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                indexes[slot] = oldIndexes[i];
+            }
+        }
+    }
+
+}
@@ -1,6 +1,5 @@
 package model;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -10,40 +9,29 @@ import java.util.List;
  */
 public class Main {
 
-    public static final byte M_INIT = 3, C_INIT = 3;
+    /**
+     * Default instance: 3 missionaries, 3 cannibals and a boat for 2 passengers.
+     */
+    private static final int M_INIT = 3, C_INIT = 3, CAPACITY = 2;
     private static final State.Margin INITIAL_MARGIN = State.Margin.Left;
 
-    private final State initialState, finalState;
+    private final Instance instance;
 
-    /**
-     * A list with all valid boats (operators).
-     */
-    public static final List<Boat> VALID_BOATS = new ArrayList<>();
-
-    static {
-        // fills the list with valid boats according with parameters.
-        for (int m = 0; m <= M_INIT; m++) {
-            for (int c = 0; c <= C_INIT; c++) {
-                Boat boat = new Boat(m, c);
-                if (boat.isValid()) {
-                    VALID_BOATS.add(boat);
-                }
-            }
-        }
-    }
+    private final State initialState, finalState;
 
-    private Main() {
+    private Main(final Instance instance) {
+        this.instance = instance;
         // initial state
-        initialState = new State(M_INIT, C_INIT, INITIAL_MARGIN);
+        initialState = new State(instance.getM(), instance.getC(), INITIAL_MARGIN);
         // objective
-        finalState = new State(M_INIT, C_INIT,
+        finalState = new State(instance.getM(), instance.getC(),
                 State.Margin.Left.equals(INITIAL_MARGIN) ? State.Margin.Right : State.Margin.Left);
     }
 
     private boolean test() {
-        Vertex root = new Vertex(new State(3, 3, State.Margin.Left));
+        Vertex root = new Vertex(instance, new State(3, 3, State.Margin.Left));
 
-        Vertex child = new Vertex(0, 2, State.Margin.Right);
+        Vertex child = new Vertex(instance, 0, 2, State.Margin.Right);
 
         Edge a = new Edge(new Boat(0, 2), root, child);
         Edge b = new Edge(new Boat(0, 2), child, root);
@@ -52,18 +40,27 @@ public class Main {
     }
 
     private boolean testVertex() {
-        Vertex vertex = new Vertex(finalState);
+        Vertex vertex = new Vertex(instance, finalState);
 
         return vertex.equals(finalState);
     }
 
-    private void run() {
+    private void run(final String mode) {
         if (!test()) {
             System.out.println("FALHOU NO TESTE");
             return;
         }
 
-        Vertex init = new Vertex(initialState);
+        if (mode != null) {
+            if (mode.equals("implicit")) {
+                runImplicit();
+            } else {
+                run(Strategy.of(mode));
+            }
+            return;
+        }
+
+        Vertex init = new Vertex(instance, initialState);
 
         // add initial state
         Graph graph = new Graph(init);
@@ -73,14 +70,62 @@ public class Main {
         search.deepSearch(init, finalState);
     }
 
+    /**
+     * Looks for the first solution without building the graph.
+     */
+    private void runImplicit() {
+        System.out.println("==== IMPLICIT SEARCH ===");
+        ImplicitSearch search = new ImplicitSearch(instance);
+        List<State> path = search.search();
+        if (path.isEmpty()) {
+            System.out.println("nenhuma solução");
+        } else {
+            System.out.println("encontrou! " + path);
+
+            System.out.println("---- ESTADOS ----");
+            for (Boat boat : search.getBoats()) {
+                System.out.println(boat);
+            }
+        }
+        System.out.println("estados expandidos: " + search.getExpanded());
+    }
+
+    /**
+     * Looks for the shortest solution with the given strategy.
+     */
+    private void run(final Strategy strategy) {
+        System.out.println("==== " + strategy.getClass().getSimpleName() + " ===");
+        Solution solution = strategy.solve(instance);
+        if (solution.isFound()) {
+            System.out.println("encontrou! " + solution);
+
+            System.out.println("---- ESTADOS ----");
+            for (Boat boat : solution.getBoats()) {
+                System.out.println(boat);
+            }
+            System.out.println("travessias: " + solution.getLength());
+        } else {
+            System.out.println("nenhuma solução");
+        }
+        System.out.println("estados expandidos: " + solution.getExpanded());
+        System.out.println("tempo: " + solution.getTime() / 1000 + " us");
+    }
+
     /**
      * Main function.
      *
-     * @param args Command line arguments (ignore).
+     * @param args Command line arguments: the number of missionaries, the number of cannibals and the max number of
+     * passengers of the boat (all optional, 3, 3 and 2 by default) and the search (optional): "implicit" to look for
+     * the first solution without building the graph, or "bfs", "iddfs" or "astar" to look for the shortest one. The
+     * deep search over the whole graph runs by default.
      */
     public static void main(final String[] args) {
-        Main main = new Main();
-        main.run();
+        int m = args.length > 0 ? Integer.parseInt(args[0]) : M_INIT;
+        int c = args.length > 1 ? Integer.parseInt(args[1]) : C_INIT;
+        int capacity = args.length > 2 ? Integer.parseInt(args[2]) : CAPACITY;
+
+        Main main = new Main(new Instance(m, c, capacity));
+        main.run(args.length > 3 ? args[3] : null);
     }
 
 }
@@ -1,19 +1,23 @@
 package model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
+ * Deep search for all the solutions on a graph: every path from a vertex to a target state that does not repeat a
+ * state. The solutions are made one at a time, when asked, by a deep search with an explicit stack: a stream of them
+ * can be cut at any point, and {@link #count(Vertex, State)} goes through all of them without making any.
  *
  * @author João Bolsson (jvmarques@inf.ufsm.br)
- * @version 2019, Apr 10.
+ * @version 2019, Jul 14.
  */
 public class Search {
 
-    private final List<Vertex> stack = new ArrayList<>();
-
-    private final List<Edge> stackEdge = new ArrayList<>();
-
     private final Graph g;
 
     public Search(final Graph g) {
@@ -21,73 +25,195 @@ public class Search {
     }
 
     /**
-     * Deep search
+     * Deep search: prints every solution.
      *
      * @param v Vertex to begin the search.
      * @param st Target state.
-     * @return The path.
+     * @return The number of solutions.
      */
-    public List<Vertex> deepSearch(final Vertex v, final State st) {
-        stack.clear();
-        List<Vertex> vertices = g.getVertices();
-
-        if (!vertices.contains(v)) {
-            return new ArrayList<>();
+    public long deepSearch(final Vertex v, final State st) {
+        if (!g.contains(v)) {
+            return 0;
         }
 
         System.out.println("==== DEEP SEARCH ===");
-        search(v, st, null);
+        long[] count = {0};
+        paths(v, st).forEach(solution -> {
+            System.out.println("encontrou! " + solution);
 
-        return stack;
+            System.out.println("---- ESTADOS ----");
+            for (Boat boat : solution.getBoats()) {
+                System.out.println(boat);
+            }
+            count[0]++;
+        });
+        return count[0];
     }
 
-    private void search(final Vertex v, final State st, final Edge edge) {
-        if (v.equals(st)) {
-            if (!stack.contains(v)) {
-                stack.add(v);
-            }
+    /**
+     * Gets all the solutions, made lazily in deep search order.
+     *
+     * @param v Vertex to begin the search.
+     * @param st Target state.
+     * @return The solutions (none if the vertex is not on the graph).
+     */
+    public Stream<Solution> paths(final Vertex v, final State st) {
+        return StreamSupport.stream(new Paths(new Walk(v, st)), false);
+    }
 
-            System.out.println("encontrou! " + stack);
+    /**
+     * Counts the solutions without making them.
+     *
+     * @param v Vertex to begin the search.
+     * @param st Target state.
+     * @return The number of solutions.
+     */
+    public long count(final Vertex v, final State st) {
+        Walk walk = new Walk(v, st);
+        long count = 0;
+        while (walk.next()) {
+            count++;
+        }
+        return count;
+    }
 
-            System.out.println("---- ESTADOS ----");
-            for (Edge e : stackEdge) {
-                System.out.println(e.getBoat());
-            }
+    /**
+     * Deep search over the paths that do not repeat a state. The current path is kept as the positions of its
+     * vertices on the graph and, for each one, the next edge to try.
+     */
+    private final class Walk {
 
-            return;
-        }
+        private final State target;
 
-        stack.add(v);
+        private int[] path = new int[16];
 
-        if (edge != null) {
-            edge.setVisited(true);
-            stackEdge.add(edge);
-        }
+        private int[] next = new int[16];
 
-        List<Edge> edges = g.getEdges(v);
+        /**
+         * Vertices on the current path, by position on the graph.
+         */
+        private final boolean[] onPath;
 
-        for (Edge e : edges) {
-            boolean mustVisit = true;
+        /**
+         * Position of the last vertex on the current path, -1 when the search is over.
+         */
+        private int depth;
 
-            // don't visit the previous node
-            if (edge != null) {
-                mustVisit = !e.getDest().equals(edge.getOrigin());
-            }
+        /**
+         * Length of the last solution found: its last vertex is at this position of {@link #path}.
+         */
+        private int length = -1;
 
-            if (!e.isVisited() && mustVisit) {
-                e.setVisited(true);
+        private int expanded = 0;
 
-                search(e.getDest(), st, e);
+        private final long startTime = System.nanoTime();
 
-                int last = stack.size() - 1;
-                if (last >= 0) {
-                    stack.remove(last);
+        Walk(final Vertex start, final State target) {
+            this.target = target;
+            onPath = new boolean[g.getVertices().size()];
+            int first = g.indexOf(start);
+            depth = first < 0 ? -1 : 0;
+            if (first >= 0) {
+                path[0] = first;
+                next[0] = 0;
+                onPath[first] = true;
+            }
+        }
+
+        /**
+         * Moves to the next solution.
+         *
+         * @return If there is another solution - true, else - false.
+         */
+        boolean next() {
+            if (depth == 0 && next[0] == 0 && length < 0 && g.getVertices().get(path[0]).equals(target)) {
+                length = 0; // the start is the target: the only solution has no crossing
+                next[0] = Integer.MAX_VALUE;
+                return true;
+            }
+            while (depth >= 0) {
+                List<Edge> edges = g.getEdges(path[depth]);
+                if (next[depth] >= edges.size()) {
+                    onPath[path[depth]] = false;
+                    depth--;
+                    continue;
+                }
+                if (next[depth] == 0) {
+                    expanded++;
+                }
+                Edge edge = edges.get(next[depth]++);
+                int dest = g.indexOf(edge.getDest());
+                if (onPath[dest]) {
+                    continue;
+                }
+                if (depth + 1 == path.length) {
+                    path = Arrays.copyOf(path, path.length * 2);
+                    next = Arrays.copyOf(next, next.length * 2);
                 }
+                path[depth + 1] = dest;
+                if (edge.getDest().equals(target)) {
+                    length = depth + 1; // a solution ends at the target: it is not expanded
+                    return true;
+                }
+                depth++;
+                next[depth] = 0;
+                onPath[dest] = true;
+            }
+            return false;
+        }
+
+        /**
+         * @return The last solution found.
+         */
+        Solution solution() {
+            List<State> states = new ArrayList<>(length + 1);
+            List<Boat> boats = new ArrayList<>(length);
+            for (int i = 0; i <= length; i++) {
+                states.add(g.getVertices().get(path[i]));
+                if (i < length) {
+                    // the edge taken is the last one tried
+                    boats.add(g.getEdges(path[i]).get(next[i] - 1).getBoat());
+                }
+            }
+            return new Solution(states, boats, expanded, System.nanoTime() - startTime);
+        }
+    }
 
-                stackEdge.remove(edge);
+    /**
+     * Solutions of a walk as a spliterator: each one is made only when asked. Not split: the deep search is
+     * sequential.
+     */
+    private static final class Paths implements Spliterator<Solution> {
+
+        private final Walk walk;
+
+        Paths(final Walk walk) {
+            this.walk = walk;
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super Solution> action) {
+            if (!walk.next()) {
+                return false;
             }
+            action.accept(walk.solution());
+            return true;
+        }
+
+        @Override
+        public Spliterator<Solution> trySplit() {
+            return null;
         }
 
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
     }
 
 }
@@ -0,0 +1,85 @@
+package model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of a {@link Strategy}: the states and the boats of the crossing found, with the number of states the search
+ * expanded and the time it took.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jul 13.
+ */
+public class Solution {
+
+    private final List<State> states;
+
+    private final List<Boat> boats;
+
+    private final int expanded;
+
+    private final long time;
+
+    /**
+     * Creates a solution.
+     *
+     * @param states States from the initial to the final one (empty if there is no solution).
+     * @param boats Boat (operator) that leads to each state after the first.
+     * @param expanded Number of states expanded.
+     * @param time Time to find the solution, in nanoseconds.
+     */
+    Solution(final List<State> states, final List<Boat> boats, final int expanded, final long time) {
+        this.states = Collections.unmodifiableList(states);
+        this.boats = Collections.unmodifiableList(boats);
+        this.expanded = expanded;
+        this.time = time;
+    }
+
+    /**
+     * @return If a crossing was found - true, else - false.
+     */
+    public boolean isFound() {
+        return !states.isEmpty();
+    }
+
+    /**
+     * @return The states from the initial to the final one, empty if there is no solution.
+     */
+    public List<State> getStates() {
+        return states;
+    }
+
+    /**
+     * @return The boats (operators), in order.
+     */
+    public List<Boat> getBoats() {
+        return boats;
+    }
+
+    /**
+     * @return Number of crossings, -1 if there is no solution.
+     */
+    public int getLength() {
+        return isFound() ? boats.size() : -1;
+    }
+
+    /**
+     * @return Number of states expanded by the search.
+     */
+    public int getExpanded() {
+        return expanded;
+    }
+
+    /**
+     * @return Time to find the solution, in nanoseconds.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    @Override
+    public String toString() {
+        return isFound() ? states.toString() : "[]";
+    }
+
+}
@@ -0,0 +1,93 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * States reached by a search, by the order they were reached, with the state and the boat (operator) each one was
+ * reached from. Everything is kept in primitive arrays.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jul 13.
+ */
+class StateTable {
+
+    private final LongHashSet index = new LongHashSet(64);
+
+    private long[] states = new long[64];
+
+    private int[] parents = new int[64];
+
+    private int[] operators = new int[64];
+
+    /**
+     * Adds a state, if it is new.
+     *
+     * @param state Packed state.
+     * @param parent Position of the state it was reached from, -1 for the start.
+     * @param operator Boat it was reached with.
+     * @return The position of the state or -1 if it was already on the table.
+     */
+    int add(final long state, final int parent, final int operator) {
+        if (!index.add(state)) {
+            return -1;
+        }
+        int position = index.size() - 1;
+        if (position == states.length) {
+            states = Arrays.copyOf(states, position * 2);
+            parents = Arrays.copyOf(parents, position * 2);
+            operators = Arrays.copyOf(operators, position * 2);
+        }
+        states[position] = state;
+        parents[position] = parent;
+        operators[position] = operator;
+        return position;
+    }
+
+    /**
+     * @param state Packed state.
+     * @return The position of the state or -1 if it is not on the table.
+     */
+    int indexOf(final long state) {
+        return index.indexOf(state);
+    }
+
+    long getState(final int position) {
+        return states[position];
+    }
+
+    void setParent(final int position, final int parent, final int operator) {
+        parents[position] = parent;
+        operators[position] = operator;
+    }
+
+    int size() {
+        return index.size();
+    }
+
+    /**
+     * Builds the solution that ends on a state, following the states each one was reached from.
+     *
+     * @param instance The instance.
+     * @param position Position of the last state.
+     * @param expanded Number of states expanded.
+     * @param time Time spent, in nanoseconds.
+     * @return The solution.
+     */
+    Solution solution(final Instance instance, final int position, final int expanded, final long time) {
+        List<State> path = new ArrayList<>();
+        List<Boat> boats = new ArrayList<>();
+        for (int p = position; p >= 0; p = parents[p]) {
+            path.add(instance.toState(states[p]));
+            if (parents[p] >= 0) {
+                boats.add(instance.getBoats().get(operators[p]));
+            }
+        }
+        Collections.reverse(path);
+        Collections.reverse(boats);
+        return new Solution(path, boats, expanded, time);
+    }
+
+}
@@ -0,0 +1,39 @@
+package model;
+
+/**
+ * A search for the shortest crossing of an instance. The strategies work on packed states (see {@link Instance}) and
+ * make the successors of a state when they expand it, without building the graph.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jul 13.
+ */
+public interface Strategy {
+
+    /**
+     * Looks for the shortest sequence of boats that takes everyone from the initial state to the final state.
+     *
+     * @param instance The instance.
+     * @return The solution, with no states if there is none.
+     */
+    Solution solve(Instance instance);
+
+    /**
+     * Gets a strategy by its name.
+     *
+     * @param name "bfs", "iddfs" or "astar".
+     * @return The strategy.
+     */
+    static Strategy of(final String name) {
+        switch (name) {
+            case "bfs":
+                return new BreadthFirst();
+            case "iddfs":
+                return new IterativeDeepening();
+            case "astar":
+                return new AStar();
+            default:
+                throw new IllegalArgumentException("Unknown strategy: " + name);
+        }
+    }
+
+}
@@ -10,16 +10,18 @@ import java.util.Map;
  */
 public class Vertex extends State {
 
-    private boolean visited = false;
+    private final Instance instance;
 
-    private final Map<Boat, Vertex> neighbors = new HashMap<>();
+    private boolean visited = false;
 
-    public Vertex(final State state) {
+    public Vertex(final Instance instance, final State state) {
         super(state.m, state.c, state.margin);
+        this.instance = instance;
     }
 
-    public Vertex(final int m, final int c, final Margin margin) {
+    public Vertex(final Instance instance, final int m, final int c, final Margin margin) {
         super(m, c, margin);
+        this.instance = instance;
     }
 
     public void setVisited(boolean visited) {
@@ -30,36 +32,46 @@ public class Vertex extends State {
         return visited;
     }
 
+    /**
+     * Gets the states reached by each valid boat. Built on every call: the vertices do not keep them.
+     *
+     * @return The next state of each boat that can cross the river.
+     */
     public Map<Boat, Vertex> getNeighbors() {
-        if (neighbors.isEmpty()) {
-            for (Boat boat : Main.VALID_BOATS) {
-                Vertex child = canApplyOperator(boat);
-                if (child != null) {
-                    neighbors.put(boat, child);
-                }
+        Map<Boat, Vertex> neighbors = new HashMap<>();
+        for (Boat boat : instance.getBoats()) {
+            Vertex child = canApplyOperator(boat);
+            if (child != null) {
+                neighbors.put(boat, child);
             }
         }
-
         return neighbors;
     }
 
+    /**
+     * @return This state packed in a long, see {@link Instance#pack(int, int, State.Margin)}.
+     */
+    public long pack() {
+        return Instance.pack(m, c, margin);
+    }
+
     public Vertex canApplyOperator(final Boat boat) {
-        Vertex currentNode = new Vertex(this);
+        Vertex currentNode = new Vertex(instance, this);
 
         currentNode.m -= boat.getM();
         currentNode.c -= boat.getC();
 
         // find how many missionaries and cannibals there is in the other side
-        int otherM = Main.M_INIT - (currentNode.m + boat.getM());
-        int otherC = Main.C_INIT - (currentNode.c + boat.getC());
+        int otherM = instance.getM() - (currentNode.m + boat.getM());
+        int otherC = instance.getC() - (currentNode.c + boat.getC());
 
         Margin otherMargin = margin.equals(Margin.Left) ? Margin.Right : Margin.Left;
 
-        Vertex otherNode = new Vertex(otherM, otherC, otherMargin);
+        Vertex otherNode = new Vertex(instance, otherM, otherC, otherMargin);
         otherNode.m += boat.getM();
         otherNode.c += boat.getC();
 
-        if (currentNode.isValid() && otherNode.isValid() && boat.isValid()) {
+        if (currentNode.isValid() && otherNode.isValid() && boat.isValid(instance.getCapacity())) {
             return otherNode;
         }
         return null;
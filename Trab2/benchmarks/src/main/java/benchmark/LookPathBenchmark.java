@@ -0,0 +1,89 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+import model.Grid;
+import model.Path;
+import model.Point;
+import model.Seeker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of {@link Seeker#lookPath(Point, Point)}. Each invocation looks for one path of a fixed list of random
+ * queries, so all strategies answer the same queries on the same grid.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jun 24.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookPathBenchmark {
+
+    /**
+     * Number of queries answered in turns by the benchmark.
+     */
+    private static final int QUERIES = 1024;
+
+    @Param({"20", "50", "100"})
+    private int dimension;
+
+    @Param({"0.1", "0.3", "0.5"})
+    private float blocked;
+
+    @Param({"GREEDY", "A_STAR", "BIDIRECTIONAL", "JUMP_POINT", "HIERARCHICAL"})
+    private Seeker.Strategy strategy;
+
+    @Param({"42"})
+    private long seed;
+
+    private Grid grid;
+
+    private Point[] starts, ends;
+
+    private int next = 0;
+
+    /**
+     * Builds the grid and the queries.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        grid = new Grid(dimension, blocked, seed);
+        grid.setStrategy(strategy);
+
+        starts = new Point[QUERIES];
+        ends = new Point[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            starts[i] = grid.getRandomPoint();
+            do {
+                ends[i] = grid.getRandomPoint();
+            } while (ends[i].equals(starts[i]));
+        }
+    }
+
+    /**
+     * Looks for the path of the next query.
+     *
+     * @return The path found (consumed by JMH).
+     */
+    @Benchmark
+    public Path lookPath() {
+        int i = next;
+        next = (i + 1) % QUERIES;
+        return grid.lookPath(starts[i], ends[i]);
+    }
+
+}
@@ -0,0 +1,39 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, so the results have the allocation rate (gc.alloc.rate.norm: bytes per
+ * operation) next to the throughput (ops/s).
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jun 24.
+ */
+public class Runner {
+
+    private Runner() {
+        // empty
+    }
+
+    /**
+     * Main function.
+     *
+     * @param args JMH command line options. Ex: '-p dimension=100 -p strategy=A_STAR'.
+     * @throws CommandLineOptionException If an option is invalid.
+     * @throws RunnerException If a benchmark fails.
+     */
+    public static void main(final String[] args) throws CommandLineOptionException, RunnerException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new org.openjdk.jmh.runner.Runner(options).run();
+    }
+
+}
@@ -1,7 +1,21 @@
 package main;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import model.Grid;
 import model.Point;
+import model.Query;
+import model.Seeker;
 
 /**
  *
@@ -17,10 +31,37 @@ public class Main {
     /**
      * Main function.
      *
-     * @param args Command line arguments.
+     * @param args Command line arguments: the search strategy (optional, GREEDY by default), the grid seed
+     * (optional, random by default), a grid file (optional: the grid is loaded from it if it exists, else the
+     * generated grid is saved on it), a queries file (optional, "-" for the standard input: see {@link QueryReader})
+     * and the output format (optional, CSV by default, or JSON). Without a queries file, random queries are made.
+     * With it, the results are written on the standard output and the report on the standard error.
+     * @throws IOException If the grid file or the queries can not be read or written.
+     * @throws InterruptedException If the main thread is interrupted while streaming the queries.
      */
-    public static void main(final String[] args) {
-        Grid grid = new Grid(DIMENSION, BLOCKED);
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+        File file = args.length > 2 ? new File(args[2]) : null;
+
+        Grid grid;
+        if (file != null && file.exists()) {
+            grid = Grid.load(file);
+        } else {
+            grid = new Grid(DIMENSION, BLOCKED, seed);
+            if (file != null) {
+                grid.save(file);
+            }
+        }
+        if (args.length > 0) {
+            grid.setStrategy(Seeker.Strategy.valueOf(args[0]));
+        }
+
+        if (args.length > 3) {
+            stream(grid, args[3], args.length > 4 ? ResultWriter.Format.valueOf(args[4]) : ResultWriter.Format.CSV);
+            return;
+        }
+
+        List<Query> queries = new ArrayList<>(PATHS);
 
         Point start = null, end = null;
         for (int i = 0; i < PATHS; i++) {
@@ -30,20 +71,49 @@ public class Main {
             while (end == null || start.equals(end)) {
                 end = grid.getRandomPoint();
             }
-            grid.lookPath(start, end);
+            queries.add(new Query(start, end));
             start = end = null;
         }
 
-        System.out.println("===============================");
-        System.out.println("RELATÓRIO");
-        System.out.println("===============================");
+        grid.lookPaths(queries);
+
+        report(System.out, grid, PATHS, grid.getTotalSamples());
+
+    }
+
+    /**
+     * Looks for the paths of the queries of a file and writes the results on the standard output.
+     *
+     * @param grid The grid.
+     * @param source Queries file or "-" for the standard input.
+     * @param format Output format.
+     * @throws IOException If the queries can not be read or the results can not be written.
+     * @throws InterruptedException If the main thread is interrupted.
+     */
+    private static void stream(final Grid grid, final String source, final ResultWriter.Format format)
+            throws IOException, InterruptedException {
+        InputStream in = source.equals("-") ? System.in : new FileInputStream(source);
+        Pipeline pipeline = new Pipeline(grid, Runtime.getRuntime().availableProcessors());
+        try (QueryReader reader = new QueryReader(new BufferedReader(new InputStreamReader(in,
+                StandardCharsets.UTF_8), 1 << 16));
+                ResultWriter writer = new ResultWriter(new BufferedWriter(new OutputStreamWriter(System.out,
+                        StandardCharsets.UTF_8), 1 << 16), format)) {
+            pipeline.run(reader, writer);
+        }
+        report(System.err, grid, pipeline.getQueries(), pipeline.getFound());
+    }
 
-        System.out.println(grid);
+    private static void report(final PrintStream out, final Grid grid, final long paths, final long valid) {
+        out.println("===============================");
+        out.println("RELATÓRIO");
+        out.println("===============================");
 
-        System.out.println("--------------------------------");
-        System.out.println("number of analysed paths: " + PATHS);
-        System.out.println("valid paths: " + grid.getTotalSamples());
+        out.println(grid);
 
+        out.println("--------------------------------");
+        out.println("seed: " + grid.getSeed());
+        out.println("number of analysed paths: " + paths);
+        out.println("valid paths: " + valid);
     }
 
 }
@@ -0,0 +1,195 @@
+package main;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import model.Grid;
+import model.Path;
+import model.Query;
+
+/**
+ * Streams queries through a grid in three stages: a thread reads the queries in batches, a pool of workers looks for
+ * their paths and the calling thread writes the results, in the same order of the queries. The batches waiting to be
+ * written are kept on a bounded queue: when the writer falls behind, the reader blocks, so the memory used does not
+ * depend on the number of queries.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jul 08.
+ */
+class Pipeline {
+
+    /**
+     * Number of queries in a batch.
+     */
+    private static final int BATCH = 1024;
+
+    /**
+     * A batch of queries and, after it is solved, their results.
+     */
+    private static final class Batch {
+
+        final Query[] queries;
+
+        final Path[] paths;
+
+        final long[] latencies;
+
+        int size = 0;
+
+        Batch() {
+            queries = new Query[BATCH];
+            paths = new Path[BATCH];
+            latencies = new long[BATCH];
+        }
+    }
+
+    /**
+     * Marks the end of the queries on the queue.
+     */
+    private static final Future<Batch> END = CompletableFuture.completedFuture(null);
+
+    private final Grid grid;
+
+    private final int workers;
+
+    private long queries = 0, found = 0;
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param grid Grid to look for the paths.
+     * @param workers Number of threads looking for paths.
+     */
+    Pipeline(final Grid grid, final int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Invalid number of workers: " + workers);
+        }
+        this.grid = grid;
+        this.workers = workers;
+    }
+
+    /**
+     * Looks for the paths of all the queries of a reader and writes their results. Returns when all of them are
+     * written.
+     *
+     * @param reader Source of the queries.
+     * @param writer Destination of the results.
+     * @throws IOException If the queries can not be read or the results can not be written.
+     * @throws InterruptedException If the calling thread is interrupted.
+     */
+    void run(final QueryReader reader, final ResultWriter writer) throws IOException, InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "solver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // one batch being solved by each worker and as many waiting: enough to keep them busy
+        BlockingQueue<Future<Batch>> pending = new ArrayBlockingQueue<>(workers * 2);
+
+        Thread producer = new Thread(() -> read(reader, pool, pending), "reader");
+        producer.setDaemon(true);
+        producer.start();
+        try {
+            Future<Batch> next;
+            while ((next = pending.take()) != END) {
+                Batch batch = next.get();
+                for (int i = 0; i < batch.size; i++) {
+                    writer.write(batch.queries[i], batch.paths[i], batch.latencies[i]);
+                    if (batch.paths[i] != null) {
+                        found++;
+                    }
+                }
+                queries += batch.size;
+                writer.flush();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            producer.interrupt();
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads the queries in batches and gives them to the workers. Runs on its own thread; a failure to read is handed
+     * to the writer on the queue.
+     *
+     * @param reader Source of the queries.
+     * @param pool Workers.
+     * @param pending Queue of the batches to write, in order.
+     */
+    private void read(final QueryReader reader, final ExecutorService pool,
+            final BlockingQueue<Future<Batch>> pending) {
+        try {
+            Batch batch = new Batch();
+            Query query;
+            while (true) {
+                try {
+                    query = reader.next();
+                } catch (IOException e) {
+                    CompletableFuture<Batch> failed = new CompletableFuture<>();
+                    failed.completeExceptionally(e);
+                    pending.put(failed);
+                    return;
+                }
+                if (query != null) {
+                    batch.queries[batch.size++] = query;
+                }
+                if (batch.size == BATCH || (query == null && batch.size > 0)) {
+                    final Batch full = batch;
+                    pending.put(pool.submit(() -> solve(full)));
+                    batch = new Batch();
+                }
+                if (query == null) {
+                    pending.put(END);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            // the writer stopped
+        }
+    }
+
+    private Batch solve(final Batch batch) {
+        for (int i = 0; i < batch.size; i++) {
+            Query query = batch.queries[i];
+            long start = System.nanoTime();
+            Path path = null;
+            // checked here: lookPath reports invalid queries on the standard output, where the results may be
+            if (grid.contains(query.getStart()) && grid.contains(query.getEnd())
+                    && !query.getStart().equals(query.getEnd())) {
+                path = grid.lookPath(query.getStart(), query.getEnd());
+            }
+            batch.latencies[i] = System.nanoTime() - start;
+            batch.paths[i] = path;
+        }
+        return batch;
+    }
+
+    /**
+     * @return Number of queries written.
+     */
+    long getQueries() {
+        return queries;
+    }
+
+    /**
+     * @return Number of queries with a path.
+     */
+    long getFound() {
+        return found;
+    }
+
+}
@@ -0,0 +1,104 @@
+package main;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import model.Point;
+import model.Query;
+
+/**
+ * Reads queries from a text source, one per line: the coordinates of the start and of the end, "x y z x y z",
+ * separated by spaces, tabs, commas or semicolons. Blank lines and lines starting with '#' are skipped. The lines are
+ * parsed without regular expressions or splitting, so millions of queries can be read quickly.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jul 08.
+ */
+class QueryReader implements Closeable {
+
+    private static final int COORDINATES = 6;
+
+    private final BufferedReader reader;
+
+    private final int[] values = new int[COORDINATES];
+
+    private long line = 0;
+
+    /**
+     * Creates a reader.
+     *
+     * @param reader Source of the queries.
+     */
+    QueryReader(final BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the next query.
+     *
+     * @return The query or null at the end of the source.
+     * @throws IOException If the source can not be read or a line is not a valid query.
+     */
+    Query next() throws IOException {
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (parse(text)) {
+                return new Query(new Point(values[0], values[1], values[2]),
+                        new Point(values[3], values[4], values[5]));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the coordinates of a line into {@link #values}.
+     *
+     * @param text Line to parse.
+     * @return True if the line has a query, false if it must be skipped.
+     * @throws IOException If the line is not a valid query.
+     */
+    private boolean parse(final String text) throws IOException {
+        int count = 0;
+        int i = 0;
+        int length = text.length();
+        while (i < length) {
+            char c = text.charAt(i);
+            if (c == ' ' || c == '\t' || c == ',' || c == ';') {
+                i++;
+                continue;
+            }
+            if (c == '#' && count == 0) {
+                return false;
+            }
+            boolean negative = c == '-';
+            if (negative || c == '+') {
+                i++;
+            }
+            int begin = i;
+            long value = 0;
+            while (i < length && (c = text.charAt(i)) >= '0' && c <= '9' && value <= Integer.MAX_VALUE) {
+                value = value * 10 + (c - '0');
+                i++;
+            }
+            if (i == begin || value > Integer.MAX_VALUE || count == COORDINATES
+                    || (i < length && " \t,;".indexOf(text.charAt(i)) < 0)) {
+                throw new IOException("Invalid query on line " + line + ": " + text);
+            }
+            values[count++] = (int) (negative ? -value : value);
+        }
+        if (count == 0) {
+            return false;
+        }
+        if (count != COORDINATES) {
+            throw new IOException("Invalid query on line " + line + ": " + text);
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+}
@@ -0,0 +1,92 @@
+package main;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import model.Path;
+import model.Point;
+import model.Query;
+
+/**
+ * Writes the result of each query as a line of CSV or of JSON: the coordinates of the query, the length of the path
+ * found, the number of points expanded by the search and the time spent on the query. The length and the number of
+ * points expanded are empty (CSV) or null (JSON) when there is no path.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jul 08.
+ */
+class ResultWriter implements Closeable {
+
+    /**
+     * Output formats.
+     */
+    enum Format {
+        CSV, JSON
+    }
+
+    private final Writer writer;
+
+    private final Format format;
+
+    private final StringBuilder line = new StringBuilder(128);
+
+    /**
+     * Creates a writer. The CSV header is written at once.
+     *
+     * @param writer Destination of the results.
+     * @param format Output format.
+     * @throws IOException If the header can not be written.
+     */
+    ResultWriter(final Writer writer, final Format format) throws IOException {
+        this.writer = writer;
+        this.format = format;
+        if (format == Format.CSV) {
+            writer.write("sx,sy,sz,ex,ey,ez,distance,expanded,latency_ns\n");
+        }
+    }
+
+    /**
+     * Writes the result of a query.
+     *
+     * @param query The query.
+     * @param path Path found or null if there is no path.
+     * @param latency Time spent on the query, in nanoseconds.
+     * @throws IOException If the result can not be written.
+     */
+    void write(final Query query, final Path path, final long latency) throws IOException {
+        line.setLength(0);
+        Point start = query.getStart(), end = query.getEnd();
+        String distance = path == null ? null : Integer.toString(path.getDistance());
+        String expanded = path == null ? null : Integer.toString(path.getExpanded());
+        if (format == Format.CSV) {
+            line.append(start.getX()).append(',').append(start.getY()).append(',').append(start.getZ()).append(',')
+                    .append(end.getX()).append(',').append(end.getY()).append(',').append(end.getZ()).append(',')
+                    .append(distance == null ? "" : distance).append(',')
+                    .append(expanded == null ? "" : expanded).append(',')
+                    .append(latency);
+        } else {
+            line.append("{\"start\":[").append(start.getX()).append(',').append(start.getY()).append(',')
+                    .append(start.getZ()).append("],\"end\":[").append(end.getX()).append(',').append(end.getY())
+                    .append(',').append(end.getZ()).append("],\"distance\":").append(distance)
+                    .append(",\"expanded\":").append(expanded)
+                    .append(",\"latency_ns\":").append(latency).append('}');
+        }
+        line.append('\n');
+        writer.append(line);
+    }
+
+    /**
+     * Sends the results written so far to the destination.
+     *
+     * @throws IOException If the results can not be written.
+     */
+    void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+}
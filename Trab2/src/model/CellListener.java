@@ -0,0 +1,19 @@
+package model;
+
+/**
+ * Receives the changes made on the points of a grid.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jul 01.
+ */
+interface CellListener {
+
+    /**
+     * Called after a point is blocked or unblocked.
+     *
+     * @param index Index of the point.
+     * @param blocked New flag of the point.
+     */
+    void cellChanged(int index, boolean blocked);
+
+}
@@ -0,0 +1,227 @@
+package model;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Packed storage for the points of a cubic grid. Each point is identified by its index x * d * d + y * d + z and its
+ * blocked flag is kept as a bit, so a grid costs one bit per point instead of one object per point. The subclasses
+ * decide where the bits are kept.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jun 18.
+ */
+abstract class Cells {
+
+    /**
+     * Number of neighbors of a point.
+     */
+    static final int NEIGHBORS = 6;
+
+    private final int dimension;
+
+    private final int size;
+
+    /**
+     * Number of changes made on the blocked flags.
+     */
+    private volatile long version = 0;
+
+    private final List<CellListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Index offsets of the neighbors of a point, on the order -x, +x, -y, +y, -z, +z.
+     */
+    private final int[] offsets;
+
+    /**
+     * Creates the storage for a grid.
+     *
+     * @param dimension Number of points per axis.
+     */
+    Cells(final int dimension) {
+        long total = (long) dimension * dimension * dimension;
+        if (dimension < 0 || total > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid grid dimension: " + dimension);
+        }
+        this.dimension = dimension;
+        this.size = (int) total;
+        int plane = dimension * dimension;
+        this.offsets = new int[]{-plane, plane, -dimension, dimension, -1, 1};
+    }
+
+    /**
+     * Gets the number of 64 bits words needed to keep the flags of a grid.
+     *
+     * @param dimension Number of points per axis.
+     * @return Number of words.
+     */
+    static int words(final int dimension) {
+        long total = (long) dimension * dimension * dimension;
+        return (int) ((total + Long.SIZE - 1) / Long.SIZE);
+    }
+
+    /**
+     * @return Number of points per axis.
+     */
+    int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * @return Number of points in the grid.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets the index of the given coordinates.
+     *
+     * @param x X coordinate.
+     * @param y Y coordinate.
+     * @param z Z coordinate.
+     * @return The index of the point or -1 if the coordinates are out of the grid.
+     */
+    int indexOf(final int x, final int y, final int z) {
+        if (x < 0 || y < 0 || z < 0 || x >= dimension || y >= dimension || z >= dimension) {
+            return -1;
+        }
+        return (x * dimension + y) * dimension + z;
+    }
+
+    int getX(final int index) {
+        return index / dimension / dimension;
+    }
+
+    int getY(final int index) {
+        return (index / dimension) % dimension;
+    }
+
+    int getZ(final int index) {
+        return index % dimension;
+    }
+
+    /**
+     * Gets the neighbors of a point. The neighbor on the direction k (on the order -x, +x, -y, +y, -z, +z) is written
+     * at the position k of the given array, or -1 if it is out of the grid. Nothing is allocated, so searches can call
+     * it for every point they expand.
+     *
+     * @param index Point index.
+     * @param x X coordinate of the point.
+     * @param y Y coordinate of the point.
+     * @param z Z coordinate of the point.
+     * @param neighbors Array to write the indexes, with at least {@link #NEIGHBORS} positions.
+     */
+    void neighbors(final int index, final int x, final int y, final int z, final int[] neighbors) {
+        int last = dimension - 1;
+        neighbors[0] = x > 0 ? index + offsets[0] : -1;
+        neighbors[1] = x < last ? index + offsets[1] : -1;
+        neighbors[2] = y > 0 ? index + offsets[2] : -1;
+        neighbors[3] = y < last ? index + offsets[3] : -1;
+        neighbors[4] = z > 0 ? index + offsets[4] : -1;
+        neighbors[5] = z < last ? index + offsets[5] : -1;
+    }
+
+    /**
+     * Gets a view of the point at the given index.
+     *
+     * @param index Point index.
+     * @return A point backed by this storage.
+     */
+    Point getPoint(final int index) {
+        return new Point(this, index, getX(index), getY(index), getZ(index));
+    }
+
+    boolean isBlocked(final int index) {
+        return (getBlockedWord(index >>> 6) & (1L << index)) != 0;
+    }
+
+    /**
+     * Blocks or unblocks a point and tells the listeners, if the flag changes.
+     *
+     * @param index Point index.
+     * @param flag New flag.
+     */
+    void setBlocked(final int index, final boolean flag) {
+        long word = getBlockedWord(index >>> 6);
+        long changed = flag ? word | 1L << index : word & ~(1L << index);
+        if (changed == word) {
+            return;
+        }
+        writeWord(index >>> 6, changed);
+        version++;
+
+        for (CellListener listener : listeners) {
+            listener.cellChanged(index, flag);
+        }
+    }
+
+    void addListener(final CellListener listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(final CellListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return Number of 64 bits words used to keep the blocked flags.
+     */
+    int words() {
+        return words(dimension);
+    }
+
+    /**
+     * Gets the blocked flags of 64 sequential points: bit i is the flag of the point word * 64 + i.
+     *
+     * @param word Word index.
+     * @return The flags.
+     */
+    abstract long getBlockedWord(int word);
+
+    /**
+     * Gets the blocked flags of the 64 points from the given index: bit i is the flag of the point index + i. The bits
+     * after the last point are zero.
+     *
+     * @param index Index of the first point.
+     * @return The flags.
+     */
+    long getBlockedBits(final int index) {
+        int word = index >>> 6;
+        int offset = index & (Long.SIZE - 1);
+        long bits = getBlockedWord(word) >>> offset;
+        if (offset != 0 && word + 1 < words()) {
+            bits |= getBlockedWord(word + 1) << (Long.SIZE - offset);
+        }
+        return bits;
+    }
+
+    /**
+     * Sets the blocked flags of 64 sequential points. Bits after the last point are ignored. Meant to fill a new grid:
+     * it does not count as a change on the version.
+     *
+     * @param word Word index.
+     * @param bits Flags to set.
+     */
+    void setBlockedWord(final int word, final long bits) {
+        long tail = size - (long) word * Long.SIZE;
+        writeWord(word, tail < Long.SIZE ? bits & ((1L << tail) - 1) : bits);
+    }
+
+    /**
+     * Keeps the blocked flags of 64 sequential points.
+     *
+     * @param word Word index.
+     * @param bits Flags to keep.
+     */
+    protected abstract void writeWord(int word, long bits);
+
+    /**
+     * @return Number of changes made on the blocked flags. Equal versions mean equal flags.
+     */
+    long getVersion() {
+        return version;
+    }
+
+}
@@ -0,0 +1,302 @@
+package model;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Connected components of the free points of a grid: two points are connected when a path between them exists, so a
+ * query between points of different components is answered without a search.
+ * <p>
+ * Each free point keeps the label of its component and labels that were joined later are merged with a small
+ * union-find over the labels. The labels are built in parallel: the grid is split into slabs of x planes, each slab is
+ * labeled with a union-find of its own points and then the faces between the slabs are joined. After that the labels
+ * follow the points blocked or unblocked: unblocking a point only joins the labels of its neighbors, blocking a point
+ * searches from its neighbors until they meet and labels again only the parts split apart.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jul 03.
+ */
+class Components implements CellListener {
+
+    /**
+     * Number of slabs per thread on the parallel labeling.
+     */
+    private static final int SLABS_PER_THREAD = 4;
+
+    private final Cells cells;
+
+    private final int dimension;
+
+    /**
+     * Label of each free point. The label of a blocked point has no meaning.
+     */
+    private final int[] labels;
+
+    /**
+     * Union-find over the labels: the parent of each label, a label is the root of its component if it is its own
+     * parent. The labels made by the first labeling are the indexes of points; the next ones come after the last
+     * index.
+     */
+    private int[] roots;
+
+    private int nextLabel;
+
+    /**
+     * Mark of the points reached by the searches made when a point is blocked: the searches of each change use marks
+     * greater than the ones used before.
+     */
+    private int[] marks;
+
+    private int mark = 0;
+
+    /**
+     * Labels the components of a grid.
+     *
+     * @param cells Grid storage.
+     */
+    Components(final Cells cells) {
+        this.cells = cells;
+        this.dimension = cells.getDimension();
+        int size = cells.size();
+        int plane = dimension * dimension;
+
+        int[] parent = new int[size];
+        int slabs = Math.max(1, Math.min(dimension, ForkJoinPool.getCommonPoolParallelism() * SLABS_PER_THREAD));
+        IntStream.range(0, slabs).parallel().forEach(slab -> {
+            int first = slab * dimension / slabs * plane;
+            int last = (slab + 1) * dimension / slabs * plane;
+            for (int index = first; index < last; index++) {
+                parent[index] = index;
+                if (cells.isBlocked(index)) {
+                    continue;
+                }
+                // the previous neighbors on each axis, inside the slab
+                if (cells.getZ(index) > 0 && !cells.isBlocked(index - 1)) {
+                    union(parent, index, index - 1);
+                }
+                if (cells.getY(index) > 0 && !cells.isBlocked(index - dimension)) {
+                    union(parent, index, index - dimension);
+                }
+                if (index - plane >= first && !cells.isBlocked(index - plane)) {
+                    union(parent, index, index - plane);
+                }
+            }
+        });
+
+        for (int slab = 1; slab < slabs; slab++) {
+            int first = slab * dimension / slabs * plane;
+            for (int index = first; index < first + plane && index < size; index++) {
+                if (!cells.isBlocked(index) && !cells.isBlocked(index - plane)) {
+                    union(parent, index, index - plane);
+                }
+            }
+        }
+
+        labels = new int[size];
+        IntStream.range(0, size).parallel().forEach(index -> labels[index] = root(parent, index));
+        // only the roots are used as labels, and their parent is themselves
+        roots = parent;
+        nextLabel = size;
+
+        cells.addListener(this);
+    }
+
+    /**
+     * Stops following the changes on the grid.
+     */
+    void close() {
+        cells.removeListener(this);
+    }
+
+    private static int root(final int[] parent, int i) {
+        while (parent[i] != i) {
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * Finds the root of a tree, halving the path to it.
+     */
+    private static int find(final int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * Joins two trees: the root with the higher index goes under the other one.
+     */
+    private static void union(final int[] parent, final int a, final int b) {
+        int ra = find(parent, a);
+        int rb = find(parent, b);
+        if (ra < rb) {
+            parent[rb] = ra;
+        } else if (rb < ra) {
+            parent[ra] = rb;
+        }
+    }
+
+    /**
+     * Gets the component of a free point.
+     *
+     * @param index Point index.
+     * @return The root label of the component.
+     */
+    private int componentOf(final int index) {
+        return root(roots, labels[index]);
+    }
+
+    /**
+     * Tells if a path between two points may exist. A blocked start point is left by any of its free neighbors, as the
+     * searches do.
+     *
+     * @param start Start index.
+     * @param goal Goal index.
+     * @return False if the points are not connected.
+     */
+    boolean connected(final int start, final int goal) {
+        if (cells.isBlocked(goal)) {
+            return false;
+        }
+        int component = componentOf(goal);
+        if (!cells.isBlocked(start)) {
+            return componentOf(start) == component;
+        }
+        int x = cells.getX(start), y = cells.getY(start), z = cells.getZ(start);
+        for (int axis = 0; axis < 3; axis++) {
+            for (int step = -1; step <= 1; step += 2) {
+                int next = neighbor(x, y, z, axis, step);
+                if (next >= 0 && !cells.isBlocked(next) && componentOf(next) == component) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized void cellChanged(final int index, final boolean blocked) {
+        int[] free = new int[6];
+        int count = 0;
+        int x = cells.getX(index), y = cells.getY(index), z = cells.getZ(index);
+        for (int axis = 0; axis < 3; axis++) {
+            for (int step = -1; step <= 1; step += 2) {
+                int next = neighbor(x, y, z, axis, step);
+                if (next >= 0 && !cells.isBlocked(next)) {
+                    free[count++] = next;
+                }
+            }
+        }
+
+        if (!blocked) {
+            if (count == 0) {
+                labels[index] = newLabel();
+                return;
+            }
+            labels[index] = labels[free[0]];
+            for (int i = 1; i < count; i++) {
+                union(roots, labels[free[0]], labels[free[i]]);
+            }
+        } else if (count > 1) {
+            split(free, count);
+        }
+    }
+
+    /**
+     * Looks for the free neighbors of a point just blocked, searching from all of them at the same time, one point per
+     * search in turns. Searches that meet are joined into a group. A group that ends without meeting the others has
+     * reached a part of the component that is now apart, and its points get a new label. Stops when one group is left:
+     * only the parts apart are labeled again, and the search costs about the size of the smaller parts.
+     *
+     * @param points Free neighbors of the blocked point.
+     * @param count Number of neighbors.
+     */
+    private void split(final int[] points, final int count) {
+        if (marks == null) {
+            marks = new int[cells.size()];
+        }
+        // the search i marks the points it reaches with base + i
+        int base = mark + 1;
+        mark += count;
+
+        int[] group = new int[count];
+        int[] heads = new int[count];
+        IntList[] queues = new IntList[count];
+        for (int i = 0; i < count; i++) {
+            group[i] = i;
+            queues[i] = new IntList();
+            queues[i].add(points[i]);
+            marks[points[i]] = base + i;
+        }
+
+        int groups = count;
+        while (groups > 1) {
+            for (int i = 0; i < count && groups > 1; i++) {
+                if (heads[i] == queues[i].size()) {
+                    continue;
+                }
+                int current = queues[i].get(heads[i]++);
+                int x = cells.getX(current), y = cells.getY(current), z = cells.getZ(current);
+                for (int axis = 0; axis < 3; axis++) {
+                    for (int step = -1; step <= 1; step += 2) {
+                        int next = neighbor(x, y, z, axis, step);
+                        if (next < 0 || cells.isBlocked(next)) {
+                            continue;
+                        }
+                        int other = marks[next] - base;
+                        if (other < 0 || other >= count) {
+                            marks[next] = base + i;
+                            queues[i].add(next);
+                        } else if (find(group, i) != find(group, other)) {
+                            union(group, i, other);
+                            groups--;
+                        }
+                    }
+                }
+
+                if (heads[i] == queues[i].size() && ended(group, heads, queues, i)) {
+                    int label = newLabel();
+                    int g = find(group, i);
+                    for (int j = 0; j < count; j++) {
+                        if (find(group, j) == g) {
+                            for (int k = 0; k < queues[j].size(); k++) {
+                                labels[queues[j].get(k)] = label;
+                            }
+                        }
+                    }
+                    groups--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Tells if all the searches on the group of the search i have ended.
+     */
+    private static boolean ended(final int[] group, final int[] heads, final IntList[] queues, final int i) {
+        int g = find(group, i);
+        for (int j = 0; j < group.length; j++) {
+            if (find(group, j) == g && heads[j] < queues[j].size()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int newLabel() {
+        if (nextLabel == roots.length) {
+            roots = Arrays.copyOf(roots, roots.length + Math.max(16, roots.length / 8));
+        }
+        roots[nextLabel] = nextLabel;
+        return nextLabel++;
+    }
+
+    private int neighbor(final int x, final int y, final int z, final int axis, final int step) {
+        return cells.indexOf(axis == 0 ? x + step : x, axis == 1 ? y + step : y, axis == 2 ? z + step : z);
+    }
+
+}
@@ -0,0 +1,186 @@
+package model;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Distance from every point of a grid to one target, with the direction of the next move towards it. Built with a
+ * level-synchronous breadth-first search: the points of each level are split into chunks expanded in parallel. Any
+ * start then reads its path in O(path length), without a search. Valid while no point is blocked or unblocked.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jul 06.
+ */
+public class DistanceField {
+
+    /**
+     * Number of points of a level expanded by each task.
+     */
+    private static final int CHUNK = 1 << 12;
+
+    private final Cells cells;
+
+    private final int target;
+
+    /**
+     * Grid version the field was built on.
+     */
+    private final long version;
+
+    /**
+     * Number of moves from each point to the target, -1 if the target can not be reached.
+     */
+    private final int[] distance;
+
+    /**
+     * Direction of the next move of each point towards the target (see
+     * {@link Cells#neighbors(int, int, int, int, int[])}), -1 for the target and the points that do not reach it.
+     */
+    private final byte[] direction;
+
+    /**
+     * Builds the field of a target.
+     *
+     * @param cells Grid storage.
+     * @param target Target index.
+     */
+    DistanceField(final Cells cells, final int target) {
+        this.cells = cells;
+        this.target = target;
+        this.version = cells.getVersion();
+        distance = new int[cells.size()];
+        direction = new byte[cells.size()];
+        Arrays.fill(distance, -1);
+        Arrays.fill(direction, (byte) -1);
+
+        if (cells.isBlocked(target)) {
+            return;
+        }
+        distance[target] = 0;
+        int[] frontier = {target};
+        for (int level = 1; frontier.length > 0; level++) {
+            frontier = expand(frontier, level);
+        }
+    }
+
+    /**
+     * Expands a level of the search. Two tasks may reach the same point at the same time: both write the same
+     * distance and a valid direction, and the point is expanded twice on the next level, which is harmless.
+     *
+     * @param frontier Points of the previous level.
+     * @param level Distance of the points of the next level.
+     * @return Points of the next level.
+     */
+    private int[] expand(final int[] frontier, final int level) {
+        int chunks = (frontier.length + CHUNK - 1) / CHUNK;
+        int[][] parts = new int[chunks][];
+        IntStream stream = IntStream.range(0, chunks);
+        if (chunks > 1) {
+            stream = stream.parallel();
+        }
+        stream.forEach(chunk -> {
+            IntList next = new IntList();
+            int[] neighbors = new int[Cells.NEIGHBORS];
+            for (int i = chunk * CHUNK; i < Math.min(frontier.length, (chunk + 1) * CHUNK); i++) {
+                int current = frontier[i];
+                cells.neighbors(current, cells.getX(current), cells.getY(current), cells.getZ(current), neighbors);
+                for (int k = 0; k < Cells.NEIGHBORS; k++) {
+                    int n = neighbors[k];
+                    if (n >= 0 && distance[n] < 0 && !cells.isBlocked(n)) {
+                        distance[n] = level;
+                        direction[n] = (byte) (k ^ 1); // the opposite direction goes back to 'current'
+                        next.add(n);
+                    }
+                }
+            }
+            parts[chunk] = next.toArray();
+        });
+
+        int total = 0;
+        for (int[] part : parts) {
+            total += part.length;
+        }
+        int[] next = new int[total];
+        int position = 0;
+        for (int[] part : parts) {
+            System.arraycopy(part, 0, next, position, part.length);
+            position += part.length;
+        }
+        return next;
+    }
+
+    /**
+     * @return If no point was blocked or unblocked since this field was built.
+     */
+    public boolean isCurrent() {
+        return version == cells.getVersion();
+    }
+
+    /**
+     * @return The target of this field.
+     */
+    public Point getTarget() {
+        return cells.getPoint(target);
+    }
+
+    /**
+     * Gets the distance from a point to the target.
+     *
+     * @param p Given point.
+     * @return Number of moves to the target, -1 if it can not be reached or the point is out of the grid.
+     */
+    public int getDistance(final Point p) {
+        int index = cells.indexOf(p.getX(), p.getY(), p.getZ());
+        return index < 0 ? -1 : distance[index];
+    }
+
+    /**
+     * Reads the shortest path from a point to the target. A blocked start leaves through its closest free neighbor, as
+     * on the searches.
+     *
+     * @param start Start point.
+     * @return The path or null if the target can not be reached from the point.
+     * @throws IllegalStateException If the grid changed since the field was built.
+     */
+    public Path getPath(final Point start) {
+        if (!isCurrent()) {
+            throw new IllegalStateException("The grid changed since the distance field was built");
+        }
+        long startTime = System.nanoTime();
+        int index = cells.indexOf(start.getX(), start.getY(), start.getZ());
+        if (index < 0 || index == target) {
+            return null;
+        }
+
+        int[] neighbors = new int[Cells.NEIGHBORS];
+        int first = index;
+        if (cells.isBlocked(index)) {
+            cells.neighbors(index, cells.getX(index), cells.getY(index), cells.getZ(index), neighbors);
+            first = -1;
+            for (int n : neighbors) {
+                if (n >= 0 && distance[n] >= 0 && (first < 0 || distance[n] < distance[first])) {
+                    first = n;
+                }
+            }
+            if (first < 0) {
+                return null;
+            }
+        } else if (distance[index] < 0) {
+            return null;
+        }
+
+        int[] indexes = new int[distance[first] + (first == index ? 1 : 2)];
+        int position = 0;
+        indexes[position++] = index;
+        if (first != index) {
+            indexes[position++] = first;
+        }
+        for (int current = first; current != target; ) {
+            cells.neighbors(current, cells.getX(current), cells.getY(current), cells.getZ(current), neighbors);
+            current = neighbors[direction[current]];
+            indexes[position++] = current;
+        }
+        return new Path(cells, indexes, 0, System.nanoTime() - startTime);
+    }
+
+}
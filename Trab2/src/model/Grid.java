@@ -1,8 +1,11 @@
 package model;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Random;
+import java.util.stream.IntStream;
 
 /**
  *
@@ -11,64 +14,295 @@ import java.util.Random;
  */
 public class Grid extends Seeker {
 
-    private static final byte COORDINATES = 3;
+    /**
+     * Number of words of the blocked bitset handled by each task when indexing the free points.
+     */
+    private static final int WORDS_PER_TASK = 1 << 12;
+
+    /**
+     * Number of distance fields kept for reuse.
+     */
+    private static final int FIELDS = 4;
+
+    private final long seed;
+
+    private final Random random;
 
-    private final List<Integer> indexesBlocked = new ArrayList<>();
+    /**
+     * Indexes of all free points, used to pick random points. Built when the first random point is taken.
+     */
+    private int[] freePoints;
 
     /**
-     * Creates a grid.
+     * Version of the grid when {@link #freePoints} was built.
+     */
+    private long freePointsVersion = -1;
+
+    /**
+     * Distance fields built, by target index, the least recently used first. Dropped when the grid changes.
+     */
+    private final Map<Integer, DistanceField> fields = new LinkedHashMap<Integer, DistanceField>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Integer, DistanceField> eldest) {
+            return size() > FIELDS;
+        }
+    };
+
+    /**
+     * Creates a grid with a random seed.
      *
      * @param dimension Grid dimension. Ex: '3' will generate a grid 3x3x3.
      * @param blocked Percent of blocked points on the grid.
      */
     public Grid(final int dimension, final float blocked) {
-        int size = (int) Math.pow(dimension, COORDINATES);
-        int blockeds = (int) (size * blocked); // number of blocked points.
-
-        Random random = new Random();
-        for (int i = 0; i < blockeds; i++) {
-            int rand = random.nextInt(size);
-            while (indexesBlocked.contains(rand)) { // avoid repeated numbers
-                rand = random.nextInt(size);
+        this(dimension, blocked, System.nanoTime());
+    }
+
+    /**
+     * Creates a grid. Each point is blocked with probability 'blocked', decided by a hash of the seed and the point
+     * index: the same seed always generates the same grid, and the points are generated in parallel.
+     *
+     * @param dimension Grid dimension. Ex: '3' will generate a grid 3x3x3.
+     * @param blocked Percent of blocked points on the grid.
+     * @param seed Seed of the grid and of the random points taken from it.
+     */
+    public Grid(final int dimension, final float blocked, final long seed) {
+        super(dimension);
+        this.seed = seed;
+        this.random = new Random(seed);
+
+        long threshold = threshold(blocked);
+
+        IntStream.range(0, cells.words()).parallel().forEach(word -> {
+            long bits = 0L;
+            long first = (long) word * Long.SIZE;
+            for (int bit = 0; bit < Long.SIZE; bit++) {
+                if (isBlocked(seed, threshold, first + bit)) {
+                    bits |= 1L << bit;
+                }
             }
+            cells.setBlockedWord(word, bits);
+        });
+    }
+
+    /**
+     * Creates a grid with the given points.
+     *
+     * @param cells Grid storage.
+     * @param seed Seed of the grid and of the random points taken from it.
+     */
+    Grid(final Cells cells, final long seed) {
+        super(cells);
+        this.seed = seed;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Opens a grid saved by {@link #save(File)}. The file is mapped in memory instead of read, so opening takes the
+     * same time for any grid size and the file is shared with other processes that open it. Blocking or unblocking
+     * points of the opened grid does not change the file.
+     *
+     * @param file Grid file.
+     * @return The grid.
+     * @throws IOException If the file can not be read or is not a grid file.
+     */
+    public static Grid load(final File file) throws IOException {
+        MappedCells cells = MappedCells.open(file);
+        return new Grid(cells, cells.getSeed());
+    }
+
+    /**
+     * Saves this grid on a file: a header with the dimension and the seed followed by the blocked flags, one bit per
+     * point.
+     *
+     * @param file File to write (replaced if it exists).
+     * @throws IOException If the file can not be written.
+     */
+    public void save(final File file) throws IOException {
+        MappedCells.save(cells, seed, file);
+    }
+
+    /**
+     * Opens a grid saved by {@link #saveTiled(File)} or generated by {@link #generateTiled(File, int, float, long)}.
+     * Only the tiles of the points being read are kept in memory, at most the given number of them at the same time,
+     * so the grid may be bigger than the memory available. Blocking or unblocking points does not change the file.
+     *
+     * @param file Tiled grid file.
+     * @param tiles Maximum number of tiles in memory at the same time (each one takes 32 KB).
+     * @return The grid.
+     * @throws IOException If the file can not be read or is not a tiled grid file.
+     */
+    public static Grid loadTiled(final File file, final int tiles) throws IOException {
+        TiledCells cells = TiledCells.open(file, tiles);
+        return new Grid(cells, cells.getSeed());
+    }
+
+    /**
+     * Saves this grid on a tiled grid file, to be opened by {@link #loadTiled(File, int)}.
+     *
+     * @param file File to write (replaced if it exists).
+     * @throws IOException If the file can not be written.
+     */
+    public void saveTiled(final File file) throws IOException {
+        TiledCells.write(file, cells.getDimension(), seed, cells::isBlocked);
+    }
 
-            indexesBlocked.add(rand);
+    /**
+     * Generates a grid straight on a tiled grid file, without keeping it in memory. The grid is the same one created
+     * by {@link #Grid(int, float, long)} with the same arguments.
+     *
+     * @param file File to write (replaced if it exists).
+     * @param dimension Grid dimension.
+     * @param blocked Percent of blocked points on the grid.
+     * @param seed Seed of the grid.
+     * @throws IOException If the file can not be written.
+     */
+    public static void generateTiled(final File file, final int dimension, final float blocked, final long seed)
+            throws IOException {
+        long threshold = threshold(blocked);
+        TiledCells.write(file, dimension, seed, index -> isBlocked(seed, threshold, index));
+    }
+
+    /**
+     * @return Number of points read from a tile already in memory, or 0 if this grid is not tiled.
+     */
+    public long getTileHits() {
+        return cells instanceof TiledCells ? ((TiledCells) cells).getHits() : 0;
+    }
+
+    /**
+     * @return Number of tiles read from the file, or 0 if this grid is not tiled.
+     */
+    public long getTileMisses() {
+        return cells instanceof TiledCells ? ((TiledCells) cells).getMisses() : 0;
+    }
+
+    /**
+     * @return Number of tiles dropped from memory to read others, or 0 if this grid is not tiled.
+     */
+    public long getTileEvictions() {
+        return cells instanceof TiledCells ? ((TiledCells) cells).getEvictions() : 0;
+    }
+
+    /**
+     * A point is blocked if the 53 high bits of its hash, as a fraction of 1, are lower than the percent of blocked
+     * points.
+     *
+     * @param blocked Percent of blocked points on the grid.
+     * @return The threshold of the hashes of the blocked points.
+     */
+    private static long threshold(final float blocked) {
+        return (long) (Math.min(Math.max(blocked, 0f), 1f) * (1L << 53));
+    }
+
+    private static boolean isBlocked(final long seed, final long threshold, final long index) {
+        return mix(seed + index) >>> 11 < threshold;
+    }
+
+    /**
+     * SplitMix64 finalizer: spreads the bits of the given value.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @return The seed used to generate this grid.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Builds the list of free points. The bitset is split into ranges: each range counts its free points, the counts
+     * give the position of each range on the list and then the ranges are written, in parallel.
+     */
+    private void indexFreePoints() {
+        int words = cells.words();
+        int tasks = (words + WORDS_PER_TASK - 1) / WORDS_PER_TASK;
+        int[] offsets = new int[tasks + 1];
+
+        IntStream.range(0, tasks).parallel().forEach(task -> {
+            int free = 0;
+            for (int word = task * WORDS_PER_TASK; word < Math.min(words, (task + 1) * WORDS_PER_TASK); word++) {
+                free += Long.bitCount(freeWord(word));
+            }
+            offsets[task + 1] = free;
+        });
+        for (int task = 0; task < tasks; task++) {
+            offsets[task + 1] += offsets[task];
         }
 
-        int i = 0;
-
-        // initialize the points
-        for (int x = 0; x < dimension; x++) {
-            for (int y = 0; y < dimension; y++) {
-                for (int z = 0; z < dimension; z++) {
-                    Point p = new Point(x, y, z);
-                    if (indexesBlocked.contains(i)) {
-                        p.setBlocked(true);
-                    }
-                    points.add(p);
-                    i++;
+        int[] free = new int[offsets[tasks]];
+        IntStream.range(0, tasks).parallel().forEach(task -> {
+            int position = offsets[task];
+            for (int word = task * WORDS_PER_TASK; word < Math.min(words, (task + 1) * WORDS_PER_TASK); word++) {
+                long bits = freeWord(word);
+                while (bits != 0) {
+                    free[position++] = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
                 }
             }
+        });
+
+        freePoints = free;
+        freePointsVersion = cells.getVersion();
+    }
+
+    /**
+     * Gets the free flags of 64 sequential points, ignoring the bits after the last point.
+     */
+    private long freeWord(final int word) {
+        long bits = ~cells.getBlockedWord(word);
+        long tail = cells.size() - (long) word * Long.SIZE;
+        return tail < Long.SIZE ? bits & ((1L << tail) - 1) : bits;
+    }
+
+    /**
+     * Gets the distance field of a target: the distance and the next move from every point to it, so the path from any
+     * start is read without a search. The field is built in parallel and reused by the next calls with the same target
+     * until a point is blocked or unblocked.
+     *
+     * @param target Target point.
+     * @return The field or null if the point is out of the grid.
+     */
+    public DistanceField getDistanceField(final Point target) {
+        int index = cells.indexOf(target.getX(), target.getY(), target.getZ());
+        if (index < 0) {
+            return null;
+        }
+        synchronized (fields) {
+            if (!fields.isEmpty() && !fields.values().iterator().next().isCurrent()) {
+                fields.clear(); // all fields were built on the same version
+            }
+            DistanceField field = fields.get(index);
+            if (field == null) {
+                field = new DistanceField(cells, index);
+                fields.put(index, field);
+            }
+            return field;
         }
     }
 
     /**
      * Gets a random point from the grid.
      *
-     * @return A random point.
+     * @return A random free point or null if all points are blocked.
      */
     public Point getRandomPoint() {
-        if (!points.isEmpty()) {
-            int size = points.size();
-            Random random = new Random();
-            int rand = random.nextInt(size);
-
-            Point point = points.get(rand);
-            while (point.isBlocked()) {
-                rand = random.nextInt(size);
-                point = points.get(rand);
+        int[] free;
+        synchronized (this) {
+            if (freePointsVersion != cells.getVersion()) { // not built yet or some point was blocked or unblocked
+                indexFreePoints();
             }
-            return point;
+            free = freePoints;
+        }
+        if (free.length > 0) {
+            return cells.getPoint(free[random.nextInt(free.length)]);
         }
         return null;
     }
@@ -0,0 +1,38 @@
+package model;
+
+/**
+ * Grid storage on the heap: the blocked flags are kept in a long array.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jun 27.
+ */
+class HeapCells extends Cells {
+
+    private final long[] blocked;
+
+    /**
+     * Creates the storage for a grid with all points free.
+     *
+     * @param dimension Number of points per axis.
+     */
+    HeapCells(final int dimension) {
+        super(dimension);
+        blocked = new long[words(dimension)];
+    }
+
+    @Override
+    boolean isBlocked(final int index) {
+        return (blocked[index >>> 6] & (1L << index)) != 0;
+    }
+
+    @Override
+    long getBlockedWord(final int word) {
+        return blocked[word];
+    }
+
+    @Override
+    protected void writeWord(final int word, final long bits) {
+        blocked[word] = bits;
+    }
+
+}
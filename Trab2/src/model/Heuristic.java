@@ -0,0 +1,56 @@
+package model;
+
+/**
+ * Estimate of the number of moves between two points, used to guide the searches. The estimate must never be greater
+ * than the real distance, so A* still finds the shortest path, and must not drop by more than one unit on a move, so
+ * a point leaves the open set only once.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jul 04.
+ */
+interface Heuristic {
+
+    /**
+     * Estimates the distance between two points.
+     *
+     * @param index Point index.
+     * @param target Target index.
+     * @return Estimated number of moves.
+     */
+    int estimate(int index, int target);
+
+    /**
+     * Updates the data this heuristic keeps about the grid, if the grid has changed. Called before each search.
+     */
+    default void refresh() {
+        // nothing is kept by default
+    }
+
+    /**
+     * Manhattan distance: the number of moves without obstacles.
+     *
+     * @param cells Grid storage.
+     * @return The heuristic.
+     */
+    static Heuristic manhattan(final Cells cells) {
+        return (index, target) -> Seeker.manhattan(cells.getX(index), cells.getY(index), cells.getZ(index),
+                cells.getX(target), cells.getY(target), cells.getZ(target));
+    }
+
+    /**
+     * Euclidean distance, rounded down. Lower than the Manhattan distance, so A* expands more points with it: useful to
+     * compare with the other heuristics.
+     *
+     * @param cells Grid storage.
+     * @return The heuristic.
+     */
+    static Heuristic euclidean(final Cells cells) {
+        return (index, target) -> {
+            long dx = cells.getX(index) - cells.getX(target);
+            long dy = cells.getY(index) - cells.getY(target);
+            long dz = cells.getZ(index) - cells.getZ(target);
+            return (int) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        };
+    }
+
+}
@@ -0,0 +1,658 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Hierarchical path finding (HPA*). The grid is split into cubic clusters and a small abstract graph is built over
+ * them:
+ * <ul>
+ * <li>the nodes are entrances: pairs of free points, one on each side of the face between two clusters. A face gets
+ * one entrance for each pair of connected regions (one region of each cluster) that touch through it, placed as close
+ * as possible to the center of the face;</li>
+ * <li>the edges link the entrances of a face (distance 1) and the nodes of a cluster that are connected inside it
+ * (their distance inside the cluster).</li>
+ * </ul>
+ * A query links its points to the nodes of their clusters, looks for a path on the abstract graph and then refines each
+ * abstract edge with a search inside a single cluster. The path is not always the shortest one, but a query only
+ * searches the abstract graph and the clusters on its path. When a point changes, only its cluster faces and the
+ * distances inside it and its six neighbors are computed again.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jul 01.
+ */
+class Hierarchy implements CellListener {
+
+    private static final int AXES = 3;
+
+    /**
+     * A node of the abstract graph: a point on the face of a cluster.
+     */
+    private static final class Node {
+
+        private final int id;
+
+        private final int cell;
+
+        private final int cluster;
+
+        /**
+         * Number of faces with an entrance on this node.
+         */
+        private int faces = 0;
+
+        /**
+         * Nodes on the other side of the entrances of this node.
+         */
+        private final List<Node> partners = new ArrayList<>(2);
+
+        /**
+         * Position of this node on the list of nodes of its cluster.
+         */
+        private int slot;
+
+        private Node(final int id, final int cell, final int cluster) {
+            this.id = id;
+            this.cell = cell;
+            this.cluster = cluster;
+        }
+
+    }
+
+    /**
+     * Nodes of a cluster and the distances between them inside the cluster.
+     */
+    private static final class Cluster {
+
+        private final List<Node> nodes = new ArrayList<>();
+
+        /**
+         * Distance from node i to node j at i * n + j, -1 if they are not connected inside the cluster.
+         */
+        private int[] distances = new int[0];
+
+    }
+
+    private final Cells cells;
+
+    private final int dimension;
+
+    private final int clusterSize;
+
+    private final int clustersPerAxis;
+
+    /**
+     * Number of points per axis of the local copy of a cluster, with a border of blocked points around it: a search
+     * inside a cluster never needs to check the bounds.
+     */
+    private final int span;
+
+    private final int volume;
+
+    /**
+     * Offsets of the six neighbors on the local copy of a cluster.
+     */
+    private final int[] offsets;
+
+    private final Cluster[] clusters;
+
+    /**
+     * Nodes by id: null for ids not in use.
+     */
+    private final List<Node> nodes = new ArrayList<>();
+
+    private final IntList freeIds = new IntList();
+
+    private final Map<Integer, Node> nodeAt = new HashMap<>();
+
+    /**
+     * Entrances of each face, as pairs of nodes. The face 'cluster * 3 + axis' is between the cluster and the next one
+     * on the axis.
+     */
+    private final Map<Integer, Node[]> faces = new HashMap<>();
+
+    /**
+     * Builds the abstract graph of a grid. The faces and the clusters are computed in parallel.
+     *
+     * @param cells Grid storage.
+     * @param clusterSize Number of points per axis of a cluster.
+     */
+    Hierarchy(final Cells cells, final int clusterSize) {
+        if (clusterSize < 1) {
+            throw new IllegalArgumentException("Invalid cluster size: " + clusterSize);
+        }
+        this.cells = cells;
+        this.dimension = cells.getDimension();
+        this.clusterSize = clusterSize;
+        this.clustersPerAxis = (dimension + clusterSize - 1) / clusterSize;
+        this.span = clusterSize + 2;
+        this.volume = span * span * span;
+        this.offsets = new int[]{span * span, -span * span, span, -span, 1, -1};
+
+        int count = clustersPerAxis * clustersPerAxis * clustersPerAxis;
+        clusters = new Cluster[count];
+        for (int i = 0; i < count; i++) {
+            clusters[i] = new Cluster();
+        }
+
+        int[][] entrances = new int[count * AXES][];
+        IntStream.range(0, count * AXES).parallel().forEach(face -> {
+            entrances[face] = findEntrances(face / AXES, face % AXES);
+        });
+        for (int face = 0; face < entrances.length; face++) {
+            addFace(face, entrances[face]);
+        }
+
+        IntStream.range(0, count).parallel().forEach(this::linkCluster);
+
+        cells.addListener(this);
+    }
+
+    /**
+     * Stops following the changes on the grid.
+     */
+    void close() {
+        cells.removeListener(this);
+    }
+
+    /**
+     * @return Number of nodes on the abstract graph.
+     */
+    int size() {
+        return nodeAt.size();
+    }
+
+    @Override
+    public synchronized void cellChanged(final int index, final boolean blocked) {
+        int cluster = clusterOf(cells.getX(index), cells.getY(index), cells.getZ(index));
+        int[] coordinates = clusterCoordinates(cluster);
+
+        // the regions of the cluster may change, so all its faces are computed again
+        List<Integer> touched = new ArrayList<>();
+        touched.add(cluster);
+        for (int axis = 0; axis < AXES; axis++) {
+            updateFace(cluster * AXES + axis);
+            if (coordinates[axis] + 1 < clustersPerAxis) {
+                touched.add(neighbor(coordinates, axis, 1));
+            }
+            if (coordinates[axis] > 0) {
+                int previous = neighbor(coordinates, axis, -1);
+                updateFace(previous * AXES + axis);
+                touched.add(previous);
+            }
+        }
+        for (int c : touched) {
+            linkCluster(c);
+        }
+    }
+
+    private void updateFace(final int face) {
+        removeFace(face);
+        addFace(face, findEntrances(face / AXES, face % AXES));
+    }
+
+    /**
+     * Looks for a path between two points.
+     *
+     * @param context Search state.
+     * @param start Start index.
+     * @param goal Goal index.
+     * @return The indexes on the path or null if the goal can not be reached.
+     */
+    int[] look(final SearchContext context, final int start, final int goal) {
+        if (cells.isBlocked(goal)) {
+            return null;
+        }
+        int startCluster = clusterOf(cells.getX(start), cells.getY(start), cells.getZ(start));
+        int goalCluster = clusterOf(cells.getX(goal), cells.getY(goal), cells.getZ(goal));
+        context.startBoxSearch(volume);
+        boolean[] free = context.boxFree;
+        int[] distance = context.boxDistance;
+
+        // distances from the start and from the goal to the nodes of their clusters
+        int[] box = box(startCluster);
+        copy(box, free);
+        free[local(box, start)] = true;
+        context.expanded += boxSearch(free, local(box, start), distance, context.boxQueue);
+        int[] startCosts = costs(clusters[startCluster], box, distance);
+        int direct = startCluster == goalCluster ? distance[local(box, goal)] : -1;
+
+        box = box(goalCluster);
+        copy(box, free);
+        context.expanded += boxSearch(free, local(box, goal), distance, context.boxQueue);
+        int[] goalCosts = costs(clusters[goalCluster], box, distance);
+
+        // A* over the abstract graph, with two extra nodes for the start and the goal
+        int first = nodes.size();
+        int last = first + 1;
+        context.startAbstractSearch(first + 2);
+        IndexedHeap open = context.abstractOpen;
+        int[] gScore = context.abstractG;
+        int[] parent = context.abstractParent;
+        int[] reached = context.abstractReached;
+        int search = context.abstractSearch;
+
+        int gx = cells.getX(goal);
+        int gy = cells.getY(goal);
+        int gz = cells.getZ(goal);
+
+        reached[first] = search;
+        gScore[first] = 0;
+        parent[first] = -1;
+        open.push(first, 0);
+
+        while (!open.isEmpty()) {
+            int current = open.poll();
+            if (current == last) {
+                break;
+            }
+            context.expanded++;
+
+            if (current == first) {
+                Cluster cluster = clusters[startCluster];
+                for (int j = 0; j < startCosts.length; j++) {
+                    if (startCosts[j] >= 0) {
+                        relax(context, current, cluster.nodes.get(j).id, startCosts[j], gx, gy, gz, first, start,
+                                goal);
+                    }
+                }
+                if (direct >= 0) {
+                    relax(context, current, last, direct, gx, gy, gz, first, start, goal);
+                }
+                continue;
+            }
+
+            Node node = nodes.get(current);
+            Cluster cluster = clusters[node.cluster];
+            int n = cluster.nodes.size();
+            for (int j = 0; j < n; j++) {
+                int cost = cluster.distances[node.slot * n + j];
+                if (cost > 0) {
+                    relax(context, current, cluster.nodes.get(j).id, cost, gx, gy, gz, first, start, goal);
+                }
+            }
+            for (Node partner : node.partners) {
+                relax(context, current, partner.id, 1, gx, gy, gz, first, start, goal);
+            }
+            if (node.cluster == goalCluster && goalCosts[node.slot] >= 0) {
+                relax(context, current, last, goalCosts[node.slot], gx, gy, gz, first, start, goal);
+            }
+        }
+
+        if (reached[last] != search) {
+            return null;
+        }
+
+        // abstract path, from the start to the goal
+        IntList route = new IntList();
+        for (int id = last; id >= 0; id = parent[id]) {
+            route.add(id == first ? start : id == last ? goal : nodes.get(id).cell);
+        }
+
+        IntList path = new IntList(gScore[last] + 1);
+        path.add(start);
+        for (int i = route.size() - 1; i > 0; i--) {
+            refine(context, route.get(i), route.get(i - 1), path);
+        }
+        return path.toArray();
+    }
+
+    private void relax(final SearchContext context, final int current, final int next, final int cost,
+            final int gx, final int gy, final int gz, final int first, final int start, final int goal) {
+        int[] gScore = context.abstractG;
+        int[] reached = context.abstractReached;
+        int g = gScore[current] + cost;
+        if (reached[next] == context.abstractSearch && gScore[next] <= g) {
+            return;
+        }
+        reached[next] = context.abstractSearch;
+        gScore[next] = g;
+        context.abstractParent[next] = current;
+
+        int cell = next == first ? start : next == first + 1 ? goal : nodes.get(next).cell;
+        int h = Seeker.manhattan(cells.getX(cell), cells.getY(cell), cells.getZ(cell), gx, gy, gz);
+        context.abstractOpen.push(next, Seeker.key(g, h));
+    }
+
+    /**
+     * Adds the points from 'from' (excluded) to 'to' (included) to the path: 'to' is the other side of an entrance
+     * or a point on the same cluster, reached with an A* search that does not leave the cluster.
+     */
+    private void refine(final SearchContext context, final int from, final int to, final IntList path) {
+        int cluster = clusterOf(cells.getX(from), cells.getY(from), cells.getZ(from));
+        if (cluster != clusterOf(cells.getX(to), cells.getY(to), cells.getZ(to))) {
+            path.add(to);
+            return;
+        }
+
+        context.nextSearch();
+        IndexedHeap open = context.open;
+        NodePages nodes = context.nodes;
+        int search = context.search;
+        int[] box = box(cluster);
+        int gx = cells.getX(to), gy = cells.getY(to), gz = cells.getZ(to);
+
+        nodes.reach(from, search, 0, -1);
+        open.push(from, 0);
+        while (!open.isEmpty()) {
+            int current = open.poll();
+            if (current == to) {
+                break;
+            }
+            context.expanded++;
+
+            int x = cells.getX(current), y = cells.getY(current), z = cells.getZ(current);
+            int g = nodes.getG(current) + 1;
+            for (int axis = 0; axis < AXES; axis++) {
+                for (int step = -1; step <= 1; step += 2) {
+                    int next = neighbor(box, x, y, z, axis, step);
+                    if (next < 0 || cells.isBlocked(next) || !nodes.reach(next, search, g, current)) {
+                        continue;
+                    }
+                    int h = Seeker.manhattan(cells.getX(next), cells.getY(next), cells.getZ(next), gx, gy, gz);
+                    open.push(next, Seeker.key(g, h));
+                }
+            }
+        }
+
+        // the parents go from 'to' back to 'from'
+        IntList segment = new IntList();
+        for (int i = to; i != from; i = nodes.getParent(i)) {
+            segment.add(i);
+        }
+        while (!segment.isEmpty()) {
+            path.add(segment.pop());
+        }
+    }
+
+    private int[] costs(final Cluster cluster, final int[] box, final int[] distance) {
+        int[] costs = new int[cluster.nodes.size()];
+        for (int j = 0; j < costs.length; j++) {
+            costs[j] = distance[local(box, cluster.nodes.get(j).cell)];
+        }
+        return costs;
+    }
+
+    /**
+     * Computes the distances between the nodes of a cluster.
+     *
+     * @param cluster Cluster index.
+     */
+    private void linkCluster(final int cluster) {
+        Cluster c = clusters[cluster];
+        int n = c.nodes.size();
+        for (int i = 0; i < n; i++) {
+            c.nodes.get(i).slot = i;
+        }
+
+        boolean[] free = new boolean[volume];
+        int[] distance = new int[volume];
+        int[] queue = new int[volume];
+        int[] box = box(cluster);
+        copy(box, free);
+
+        int[] distances = new int[n * n];
+        for (int i = 0; i < n; i++) {
+            boxSearch(free, local(box, c.nodes.get(i).cell), distance, queue);
+            for (int j = 0; j < n; j++) {
+                distances[i * n + j] = distance[local(box, c.nodes.get(j).cell)];
+            }
+        }
+        c.distances = distances;
+    }
+
+    /**
+     * Copies the blocked flags of a cluster.
+     *
+     * @param box Cluster bounds.
+     * @param free Free flag of each point of the cluster (local index), false for the border.
+     */
+    private void copy(final int[] box, final boolean[] free) {
+        Arrays.fill(free, false);
+        for (int x = box[0]; x < box[3]; x++) {
+            for (int y = box[1]; y < box[4]; y++) {
+                int index = cells.indexOf(x, y, box[2]);
+                int l = local(box, index);
+                for (int z = box[2]; z < box[5]; z++, index++, l++) {
+                    free[l] = !cells.isBlocked(index);
+                }
+            }
+        }
+    }
+
+    /**
+     * Breadth-first search inside a cluster.
+     *
+     * @param free Free flag of each point of the cluster (local index).
+     * @param from Local index of the first point.
+     * @param distance Distance of each point of the cluster (local index), -1 if not reached.
+     * @param queue Working space.
+     * @return Number of points expanded.
+     */
+    private int boxSearch(final boolean[] free, final int from, final int[] distance, final int[] queue) {
+        Arrays.fill(distance, -1);
+        distance[from] = 0;
+        int head = 0, tail = 0;
+        queue[tail++] = from;
+
+        while (head < tail) {
+            int current = queue[head++];
+            for (int offset : offsets) {
+                int next = current + offset;
+                if (free[next] && distance[next] < 0) {
+                    distance[next] = distance[current] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Labels the connected regions of free points of a cluster.
+     *
+     * @return The region of each point (local index), -1 for blocked points.
+     */
+    private int[] labelRegions(final int[] box) {
+        boolean[] free = new boolean[volume];
+        int[] labels = new int[volume];
+        int[] queue = new int[volume];
+        copy(box, free);
+        Arrays.fill(labels, -1);
+
+        int region = 0;
+        for (int l = 0; l < volume; l++) {
+            if (!free[l] || labels[l] >= 0) {
+                continue;
+            }
+            labels[l] = region;
+            int head = 0, tail = 0;
+            queue[tail++] = l;
+            while (head < tail) {
+                int current = queue[head++];
+                for (int offset : offsets) {
+                    int next = current + offset;
+                    if (free[next] && labels[next] < 0) {
+                        labels[next] = region;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+            region++;
+        }
+        return labels;
+    }
+
+    /**
+     * Finds the entrances of the face between a cluster and the next one on an axis.
+     *
+     * @param cluster Cluster index.
+     * @param axis Axis.
+     * @return Pairs of point indexes: the point on the cluster and the point on the next cluster.
+     */
+    private int[] findEntrances(final int cluster, final int axis) {
+        int[] coordinates = clusterCoordinates(cluster);
+        if (coordinates[axis] + 1 >= clustersPerAxis) {
+            return new int[0];
+        }
+        int[] box = box(cluster);
+        int[] nextBox = box(neighbor(coordinates, axis, 1));
+        int[] labels = labelRegions(box);
+        int[] nextLabels = labelRegions(nextBox);
+
+        int u = (axis + 1) % AXES;
+        int v = (axis + 2) % AXES;
+        int plane = box[AXES + axis] - 1;
+        int centerU = box[u] + box[AXES + u] - 1; // twice the center, to keep it an integer
+        int centerV = box[v] + box[AXES + v] - 1;
+
+        // best entrance of each pair of regions: {point, next point, distance to the center}
+        Map<Long, int[]> best = new HashMap<>();
+        int[] point = new int[AXES];
+        for (int pu = box[u]; pu < box[AXES + u]; pu++) {
+            for (int pv = box[v]; pv < box[AXES + v]; pv++) {
+                point[axis] = plane;
+                point[u] = pu;
+                point[v] = pv;
+                int a = cells.indexOf(point[0], point[1], point[2]);
+                point[axis] = plane + 1;
+                int b = cells.indexOf(point[0], point[1], point[2]);
+                if (cells.isBlocked(a) || cells.isBlocked(b)) {
+                    continue;
+                }
+
+                long regions = ((long) labels[local(box, a)] << 32) | nextLabels[local(nextBox, b)];
+                int score = Math.abs(2 * pu - centerU) + Math.abs(2 * pv - centerV);
+                int[] entrance = best.get(regions);
+                if (entrance == null || score < entrance[2]) {
+                    best.put(regions, new int[]{a, b, score});
+                }
+            }
+        }
+
+        int[] entrances = new int[best.size() * 2];
+        int i = 0;
+        for (int[] entrance : best.values()) {
+            entrances[i++] = entrance[0];
+            entrances[i++] = entrance[1];
+        }
+        return entrances;
+    }
+
+    private void addFace(final int face, final int[] entrances) {
+        Node[] pairs = new Node[entrances.length];
+        for (int i = 0; i < entrances.length; i += 2) {
+            Node a = acquire(entrances[i]);
+            Node b = acquire(entrances[i + 1]);
+            a.partners.add(b);
+            b.partners.add(a);
+            pairs[i] = a;
+            pairs[i + 1] = b;
+        }
+        faces.put(face, pairs);
+    }
+
+    private void removeFace(final int face) {
+        Node[] pairs = faces.remove(face);
+        if (pairs == null) {
+            return;
+        }
+        for (int i = 0; i < pairs.length; i += 2) {
+            pairs[i].partners.remove(pairs[i + 1]);
+            pairs[i + 1].partners.remove(pairs[i]);
+            release(pairs[i]);
+            release(pairs[i + 1]);
+        }
+    }
+
+    /**
+     * Gets the node of a point, creating it if the point is not a node yet.
+     */
+    private Node acquire(final int cell) {
+        Node node = nodeAt.get(cell);
+        if (node == null) {
+            int id;
+            if (freeIds.isEmpty()) {
+                id = nodes.size();
+                nodes.add(null);
+            } else {
+                id = freeIds.pop();
+            }
+            node = new Node(id, cell, clusterOf(cells.getX(cell), cells.getY(cell), cells.getZ(cell)));
+            nodes.set(id, node);
+            nodeAt.put(cell, node);
+            clusters[node.cluster].nodes.add(node);
+        }
+        node.faces++;
+        return node;
+    }
+
+    /**
+     * Removes a face from a node, removing the node when it has no more faces.
+     */
+    private void release(final Node node) {
+        if (--node.faces == 0) {
+            nodes.set(node.id, null);
+            freeIds.add(node.id);
+            nodeAt.remove(node.cell);
+            clusters[node.cluster].nodes.remove(node);
+        }
+    }
+
+    private int clusterOf(final int x, final int y, final int z) {
+        int cx = x / clusterSize, cy = y / clusterSize, cz = z / clusterSize;
+        return (cx * clustersPerAxis + cy) * clustersPerAxis + cz;
+    }
+
+    private int[] clusterCoordinates(final int cluster) {
+        return new int[]{cluster / clustersPerAxis / clustersPerAxis, (cluster / clustersPerAxis) % clustersPerAxis,
+            cluster % clustersPerAxis};
+    }
+
+    private int neighbor(final int[] coordinates, final int axis, final int step) {
+        int[] c = coordinates.clone();
+        c[axis] += step;
+        return (c[0] * clustersPerAxis + c[1]) * clustersPerAxis + c[2];
+    }
+
+    /**
+     * @return The index of the next point on an axis or -1 if it is out of the cluster with the given bounds.
+     */
+    private int neighbor(final int[] box, final int x, final int y, final int z, final int axis, final int step) {
+        int nx = axis == 0 ? x + step : x;
+        int ny = axis == 1 ? y + step : y;
+        int nz = axis == 2 ? z + step : z;
+        if (nx < box[0] || ny < box[1] || nz < box[2] || nx >= box[3] || ny >= box[4] || nz >= box[5]) {
+            return -1;
+        }
+        return cells.indexOf(nx, ny, nz);
+    }
+
+    /**
+     * @return The bounds of a cluster: {min x, min y, min z, max x, max y, max z}, max excluded.
+     */
+    private int[] box(final int cluster) {
+        int[] c = clusterCoordinates(cluster);
+        int[] box = new int[2 * AXES];
+        for (int axis = 0; axis < AXES; axis++) {
+            box[axis] = c[axis] * clusterSize;
+            box[AXES + axis] = Math.min(dimension, box[axis] + clusterSize);
+        }
+        return box;
+    }
+
+    /**
+     * @return The index of a point inside the cluster with the given bounds.
+     */
+    private int local(final int[] box, final int index) {
+        int x = cells.getX(index) - box[0] + 1;
+        int y = cells.getY(index) - box[1] + 1;
+        int z = cells.getZ(index) - box[2] + 1;
+        return (x * span + y) * span + z;
+    }
+
+}
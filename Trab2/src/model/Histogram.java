@@ -0,0 +1,104 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of non-negative values (times in nanoseconds) with logarithmic buckets: each power of two is split in
+ * {@value #SUB_BUCKETS} buckets, so a percentile is known within 1/{@value #SUB_BUCKETS} of its value. Recording a
+ * value does not allocate and can be done by many threads at the same time.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jun 25.
+ */
+class Histogram {
+
+    private static final int SUB_BITS = 4;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    private static final int BUCKETS = (Long.SIZE - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder samples = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value.
+     *
+     * @param value Value to record (negative values count as zero).
+     */
+    void record(final long value) {
+        long v = Math.max(value, 0L);
+        counts.incrementAndGet(bucket(v));
+        samples.increment();
+        sum.add(v);
+        max.accumulateAndGet(v, Math::max);
+    }
+
+    long getSamples() {
+        return samples.sum();
+    }
+
+    long getSum() {
+        return sum.sum();
+    }
+
+    long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Gets the value below which the given fraction of the samples is.
+     *
+     * @param quantile Fraction of the samples, from 0 to 1. Ex: 0.99 for the 99th percentile.
+     * @return The highest value of the bucket where the quantile is (never above the max value).
+     */
+    long getPercentile(final double quantile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        long rank = (long) Math.ceil(quantile * total);
+
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank && seen > 0) {
+                return Math.min(highest(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Values lower than {@value #SUB_BUCKETS} have their own bucket. Higher values go to the bucket of their power of
+     * two and of their next {@value #SUB_BITS} bits.
+     */
+    private static int bucket(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * @return The highest value that goes to the given bucket.
+     */
+    private static long highest(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long first = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return first + (1L << shift) - 1;
+    }
+
+}
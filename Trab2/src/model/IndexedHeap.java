@@ -0,0 +1,186 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of point indexes. Each index appears at most once and keeps its position on the heap, so the key of
+ * an index that is already queued can be changed in O(log n) (decrease-key). The heap slots of the indexes are kept
+ * on {@link IntPages}, so a heap over a big grid only takes memory for the indexes queued around the search.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jun 19.
+ */
+class IndexedHeap {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Heap slot of each index plus one, 0 if the index is not queued.
+     */
+    private final IntPages position;
+
+    private int[] items = new int[INITIAL_CAPACITY];
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+
+    private int size = 0;
+
+    /**
+     * Creates an empty heap.
+     *
+     * @param capacity Number of indexes that can be queued: [0, capacity).
+     */
+    IndexedHeap(final int capacity) {
+        position = new IntPages(capacity);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(final int item) {
+        return position.get(item) > 0;
+    }
+
+    /**
+     * Queues the given index or changes its key if it is already queued.
+     *
+     * @param item Index to queue.
+     * @param key Priority (lower first).
+     */
+    void push(final int item, final long key) {
+        int slot = position.get(item) - 1;
+        if (slot < 0) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            slot = size++;
+            position.set(item, slot + 1); // allocates the page of the item, if needed
+            place(slot, item, key);
+            siftUp(slot);
+        } else if (key < keys[slot]) {
+            keys[slot] = key;
+            siftUp(slot);
+        } else {
+            keys[slot] = key;
+            siftDown(slot);
+        }
+    }
+
+    /**
+     * @return The index with the lowest key, without removing it.
+     */
+    int peek() {
+        return items[0];
+    }
+
+    /**
+     * @return The lowest key on the heap.
+     */
+    long peekKey() {
+        return keys[0];
+    }
+
+    /**
+     * Removes the index with the lowest key.
+     *
+     * @return The removed index.
+     */
+    int poll() {
+        int item = items[0];
+        remove(item);
+        return item;
+    }
+
+    /**
+     * Removes the given index from the heap, if it is queued.
+     *
+     * @param item Index to remove.
+     */
+    void remove(final int item) {
+        int slot = position.get(item) - 1;
+        if (slot < 0) {
+            return;
+        }
+        position.update(item, 0);
+        size--;
+        if (slot != size) {
+            long key = keys[slot];
+            place(slot, items[size], keys[size]);
+            if (keys[slot] < key) {
+                siftUp(slot);
+            } else {
+                siftDown(slot);
+            }
+        }
+    }
+
+    /**
+     * Removes all indexes. Costs O(size), not O(capacity).
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            position.update(items[i], 0);
+        }
+        size = 0;
+    }
+
+    /**
+     * Removes all indexes and drops the memory kept for their heap slots.
+     */
+    void release() {
+        clear();
+        position.release();
+    }
+
+    /**
+     * @return Number of pages allocated to keep the heap slots.
+     */
+    int getPages() {
+        return position.getPages();
+    }
+
+    private void place(final int slot, final int item, final long key) {
+        items[slot] = item;
+        keys[slot] = key;
+        position.update(item, slot + 1);
+    }
+
+    private void siftUp(int slot) {
+        int item = items[slot];
+        long key = keys[slot];
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (keys[parent] <= key) {
+                break;
+            }
+            place(slot, items[parent], keys[parent]);
+            slot = parent;
+        }
+        place(slot, item, key);
+    }
+
+    private void siftDown(int slot) {
+        int item = items[slot];
+        long key = keys[slot];
+        int half = size >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            place(slot, items[child], keys[child]);
+            slot = child;
+        }
+        place(slot, item, key);
+    }
+
+}
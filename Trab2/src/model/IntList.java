@@ -0,0 +1,71 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of ints, used for stacks and frontiers of point indexes without boxing.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jun 26.
+ */
+class IntList {
+
+    private int[] values;
+
+    private int size = 0;
+
+    IntList() {
+        this(16);
+    }
+
+    IntList(final int capacity) {
+        values = new int[Math.max(capacity, 1)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int get(final int i) {
+        return values[i];
+    }
+
+    void add(final int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Removes the last value.
+     *
+     * @return The removed value.
+     */
+    int pop() {
+        return values[--size];
+    }
+
+    /**
+     * @return The last value.
+     */
+    int peek() {
+        return values[size - 1];
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return A copy of the values on this list.
+     */
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+}
@@ -0,0 +1,81 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Array of ints indexed by point, split in pages of {@link #PAGE} values that are allocated on their first write. A
+ * search keeps its state by point, but reaches only the points around its path: with pages, the memory follows the
+ * points reached and not the size of the grid, so grids bigger than the memory can be searched. A page never written
+ * reads as zero.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jul 15.
+ */
+class IntPages {
+
+    static final int SHIFT = 10;
+
+    /**
+     * Number of values on a page.
+     */
+    static final int PAGE = 1 << SHIFT;
+
+    static final int MASK = PAGE - 1;
+
+    private final int[][] pages;
+
+    /**
+     * Number of pages allocated.
+     */
+    private int allocated = 0;
+
+    /**
+     * Creates an array with all values zero.
+     *
+     * @param size Number of values: [0, size).
+     */
+    IntPages(final int size) {
+        pages = new int[(int) (((long) size + PAGE - 1) >>> SHIFT)][];
+    }
+
+    int get(final int index) {
+        int[] page = pages[index >>> SHIFT];
+        return page == null ? 0 : page[index & MASK];
+    }
+
+    void set(final int index, final int value) {
+        int[] page = pages[index >>> SHIFT];
+        if (page == null) {
+            page = new int[PAGE];
+            pages[index >>> SHIFT] = page;
+            allocated++;
+        }
+        page[index & MASK] = value;
+    }
+
+    /**
+     * Sets a value written before, so its page is already allocated.
+     *
+     * @param index Index of the value.
+     * @param value New value.
+     */
+    void update(final int index, final int value) {
+        pages[index >>> SHIFT][index & MASK] = value;
+    }
+
+    /**
+     * @return Number of pages allocated.
+     */
+    int getPages() {
+        return allocated;
+    }
+
+    /**
+     * Sets all values to zero, dropping the pages.
+     */
+    void release() {
+        Arrays.fill(pages, null);
+        allocated = 0;
+    }
+
+}
@@ -0,0 +1,116 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Lengths of the jumps of the Jump Point Search, by point index: for each of the six directions, the number of steps
+ * from the point to the first jump point on the direction that does not depend on the goal (a forced neighbor or a
+ * turn that finds one) or, if there is none, minus the number of free points before the obstacle or the border. The
+ * lengths depend only on the grid, so they are kept between searches until the grid changes: a line is crossed once,
+ * not once for each point of the line that turns to it.
+ * <p>
+ * The lengths are kept as shorts (a length is less than the dimension of the grid) on pages of {@link IntPages#PAGE}
+ * points, allocated when a jump first crosses a point of the page, like {@link NodePages}. They are only a cache: past
+ * {@link #MAX_PAGES}, the lengths found are dropped and found again when needed, so a search over a big grid does not
+ * keep a length for each point its jumps cross.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jul 16.
+ */
+class JumpPages {
+
+    /**
+     * Length not known yet.
+     */
+    static final int UNKNOWN = Short.MIN_VALUE;
+
+    /**
+     * Values of each point: the lengths on the six directions.
+     */
+    private static final int FIELDS = 6;
+
+    /**
+     * Number of pages kept: 16 MB.
+     */
+    private static final int MAX_PAGES = (16 << 20) / (IntPages.PAGE * FIELDS * Short.BYTES);
+
+    private final short[][] pages;
+
+    /**
+     * Number of pages allocated.
+     */
+    private int allocated = 0;
+
+    /**
+     * Version of the grid the lengths were found on.
+     */
+    private long version = -1;
+
+    /**
+     * Creates the lengths of a grid, with no length known.
+     *
+     * @param size Number of points in the grid.
+     */
+    JumpPages(final int size) {
+        pages = new short[(int) (((long) size + IntPages.PAGE - 1) >>> IntPages.SHIFT)][];
+    }
+
+    /**
+     * @param index Point index.
+     * @param direction Direction of the jump.
+     * @return The length of the jump or {@link #UNKNOWN}.
+     */
+    int get(final int index, final int direction) {
+        short[] page = pages[index >>> IntPages.SHIFT];
+        return page == null ? UNKNOWN : page[(index & IntPages.MASK) * FIELDS + direction];
+    }
+
+    /**
+     * @param index Point index.
+     * @param direction Direction of the jump.
+     * @param length Steps to the jump point or minus the free points before the obstacle.
+     */
+    void set(final int index, final int direction, final int length) {
+        short[] page = pages[index >>> IntPages.SHIFT];
+        if (page == null) {
+            if (allocated == MAX_PAGES) {
+                release();
+            }
+            page = new short[IntPages.PAGE * FIELDS];
+            Arrays.fill(page, (short) UNKNOWN);
+            pages[index >>> IntPages.SHIFT] = page;
+            allocated++;
+        }
+        page[(index & IntPages.MASK) * FIELDS + direction] = (short) length;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * Drops the lengths found on an older version of the grid.
+     *
+     * @param version Current version of the grid.
+     */
+    void reset(final long version) {
+        release();
+        this.version = version;
+    }
+
+    /**
+     * @return Number of pages allocated, in pages of {@link IntPages#PAGE} ints.
+     */
+    int getPages() {
+        return allocated * FIELDS / 2;
+    }
+
+    /**
+     * Drops the pages: no length is known.
+     */
+    void release() {
+        Arrays.fill(pages, null);
+        allocated = 0;
+    }
+
+}
@@ -0,0 +1,382 @@
+package model;
+
+/**
+ * Jump Point Search for a grid where each point has six neighbors (no diagonal moves).
+ * <p>
+ * Many shortest paths have the same length in such a grid: they differ only on the order of the moves. This search
+ * considers only the paths that move on x first, then on y and then on z (canonical paths), and turns to an axis of
+ * higher priority only when an obstacle forces it: moving from 'p' to 'n', the neighbor 'n + e' on a higher priority
+ * axis is forced if 'p + e' is blocked, since the canonical path through 'p + e' does not exist. Moving on an axis,
+ * each step looks ahead on the axes of lower priority; a point is a jump point when it is the goal, has a forced
+ * neighbor or reaches a jump point by turning to a lower priority axis. A* runs only over the jump points.
+ * <p>
+ * The look-ahead is most of the cost of a jump: each step on x scans the lines on y and z from it. So the lengths of
+ * the jumps are kept ({@link JumpPages}) while the grid does not change, and each line is scanned once.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jun 28.
+ */
+class JumpPointSearch {
+
+    /**
+     * Steps of the six directions: +x, -x, +y, -y, +z, -z. The axis of a direction is direction / 2.
+     */
+    private static final int[] DX = {1, -1, 0, 0, 0, 0}, DY = {0, 0, 1, -1, 0, 0}, DZ = {0, 0, 0, 0, 1, -1};
+
+    private static final int DIRECTIONS = 6;
+
+    private final Cells cells;
+
+    private final int dimension;
+
+    /**
+     * Creates the search for a grid.
+     *
+     * @param cells Grid storage.
+     */
+    JumpPointSearch(final Cells cells) {
+        this.cells = cells;
+        this.dimension = cells.getDimension();
+    }
+
+    /**
+     * Looks for the shortest path between two points.
+     *
+     * @param context Search state.
+     * @param start Start index.
+     * @param goal Goal index.
+     * @return The indexes on the shortest path or null if the goal can not be reached.
+     */
+    int[] look(final SearchContext context, final int start, final int goal) {
+        context.startJumpSearch();
+        if (context.jumps.getVersion() != cells.getVersion()) {
+            context.jumps.reset(cells.getVersion());
+        }
+        IndexedHeap open = context.open;
+        NodePages nodes = context.nodes;
+        int search = context.search;
+
+        int gx = cells.getX(goal);
+        int gy = cells.getY(goal);
+        int gz = cells.getZ(goal);
+
+        nodes.reach(start, search, 0, -1);
+        open.push(start, Seeker.key(0, Seeker.manhattan(cells.getX(start), cells.getY(start), cells.getZ(start),
+                gx, gy, gz)));
+
+        while (!open.isEmpty()) {
+            int current = open.poll();
+            if (current == goal) {
+                return fillPath(Seeker.buildPath(nodes, goal));
+            }
+            context.expanded++;
+
+            int x = cells.getX(current);
+            int y = cells.getY(current);
+            int z = cells.getZ(current);
+            int arrival = nodes.getParent(current) < 0 ? -1 : direction(nodes.getParent(current), current);
+
+            for (int direction = 0; direction < DIRECTIONS; direction++) {
+                if (!isSuccessor(x, y, z, arrival, direction)) {
+                    continue;
+                }
+                int jumpPoint = jump(context, x, y, z, direction, goal);
+                if (jumpPoint < 0) {
+                    continue;
+                }
+
+                int jx = cells.getX(jumpPoint);
+                int jy = cells.getY(jumpPoint);
+                int jz = cells.getZ(jumpPoint);
+                int g = nodes.getG(current) + Seeker.manhattan(x, y, z, jx, jy, jz);
+                if (!nodes.reach(jumpPoint, search, g, current)) {
+                    continue;
+                }
+                open.push(jumpPoint, Seeker.key(g, Seeker.manhattan(jx, jy, jz, gx, gy, gz)));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks if a jump point must be left on the given direction.
+     *
+     * @param x X coordinate of the jump point.
+     * @param y Y coordinate of the jump point.
+     * @param z Z coordinate of the jump point.
+     * @param arrival Direction used to reach the jump point (-1 for the start).
+     * @param direction Direction to leave.
+     * @return If the direction is the same of the arrival, of a lower priority axis or goes to a forced neighbor.
+     */
+    private boolean isSuccessor(final int x, final int y, final int z, final int arrival, final int direction) {
+        if (arrival < 0) {
+            return true;
+        }
+        int axis = direction / 2;
+        int arrivalAxis = arrival / 2;
+        if (axis == arrivalAxis) {
+            return direction == arrival;
+        }
+        if (axis > arrivalAxis) {
+            return true;
+        }
+        // higher priority axis: only if the point beside the previous one is blocked
+        return isBlocked(x - DX[arrival] + DX[direction], y - DY[arrival] + DY[direction],
+                z - DZ[arrival] + DZ[direction]);
+    }
+
+    /**
+     * Moves from a point on the given direction until a jump point. The jump points that do not depend on the goal are
+     * found by {@link #length(SearchContext, int, int, int, int)}; the goal can only stop the move on the point of the
+     * line aligned with it, which is checked apart.
+     *
+     * @param context Search state.
+     * @param x X coordinate of the point.
+     * @param y Y coordinate of the point.
+     * @param z Z coordinate of the point.
+     * @param direction Direction to move.
+     * @param goal Goal index or -1 to find only the jump points that do not depend on the goal.
+     * @return The index of the jump point or -1 if the move hits an obstacle or the border before finding one.
+     */
+    private int jump(final SearchContext context, final int x, final int y, final int z, final int direction,
+                     final int goal) {
+        int length = length(context, x, y, z, direction);
+
+        // steps to the point aligned with the goal: only moves on x, on y over the goal x or on z over its x and y
+        int axis = direction / 2;
+        int toGoal = 0;
+        if (goal >= 0) {
+            int gx = cells.getX(goal);
+            int gy = cells.getY(goal);
+            if (axis == 0) {
+                toGoal = (gx - x) * DX[direction];
+            } else if (axis == 1 && x == gx) {
+                toGoal = (gy - y) * DY[direction];
+            } else if (axis == 2 && x == gx && y == gy) {
+                toGoal = (cells.getZ(goal) - z) * DZ[direction];
+            }
+        }
+        if (toGoal > 0 && (length > 0 ? toGoal < length : toGoal <= -length)) {
+            int tx = x + toGoal * DX[direction];
+            int ty = y + toGoal * DY[direction];
+            int tz = z + toGoal * DZ[direction];
+            int index = cells.indexOf(tx, ty, tz);
+            if (index == goal || turns(context, tx, ty, tz, axis, goal)) {
+                return index;
+            }
+        }
+        if (length <= 0) {
+            return -1;
+        }
+        return cells.indexOf(x + length * DX[direction], y + length * DY[direction], z + length * DZ[direction]);
+    }
+
+    /**
+     * Finds the length of the jump from a point to the first jump point that does not depend on the goal (see
+     * {@link JumpPages}). On x and y, the lengths of the points crossed are kept too: the next jumps that cross them
+     * stop there.
+     *
+     * @param context Search state.
+     * @param x X coordinate of the point.
+     * @param y Y coordinate of the point.
+     * @param z Z coordinate of the point.
+     * @param direction Direction to move.
+     * @return Steps to the jump point or minus the free points before the obstacle or the border.
+     */
+    private int length(final SearchContext context, final int x, final int y, final int z, final int direction) {
+        JumpPages jumps = context.jumps;
+        int start = cells.indexOf(x, y, z);
+        int known = jumps.get(start, direction);
+        if (known != JumpPages.UNKNOWN) {
+            return known;
+        }
+        if (direction >= 4) {
+            int length = direction == 4 ? lengthForward(x, y, z) : lengthBackward(x, y, z);
+            jumps.set(start, direction, length);
+            return length;
+        }
+        int axis = direction / 2;
+        int steps = 0;
+        int length;
+        int cx = x, cy = y;
+        while (true) {
+            int px = cx, py = cy;
+            cx += DX[direction];
+            cy += DY[direction];
+            int index = cells.indexOf(cx, cy, z);
+            if (index < 0 || cells.isBlocked(index)) {
+                length = -steps;
+                break;
+            }
+            steps++;
+            if (hasForced(px, py, cx, cy, z, axis) || turns(context, cx, cy, z, axis, -1)) {
+                length = steps;
+                break;
+            }
+            known = jumps.get(index, direction);
+            if (known != JumpPages.UNKNOWN) {
+                length = known > 0 ? steps + known : known - steps;
+                break;
+            }
+        }
+
+        // the points crossed reach the same jump point or obstacle, one step closer each
+        int step = (DX[direction] * dimension + DY[direction]) * dimension;
+        for (int i = 0; i < steps; i++) {
+            jumps.set(start + i * step, direction, length > 0 ? length - i : length + i);
+        }
+        return length;
+    }
+
+    /**
+     * @return If a point reached from the previous one on the given axis (x or y) has a forced neighbor on the axes of
+     * higher priority.
+     */
+    private boolean hasForced(final int px, final int py, final int x, final int y, final int z, final int axis) {
+        for (int e = 0; e < 2 * axis; e++) {
+            if (isFree(x + DX[e], y + DY[e], z) && isBlocked(px + DX[e], py + DY[e], z)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return If a jump point is found turning from a point to the axes of lower priority than the given one.
+     */
+    private boolean turns(final SearchContext context, final int x, final int y, final int z, final int axis,
+                          final int goal) {
+        for (int e = 2 * (axis + 1); e < DIRECTIONS; e++) {
+            if (jump(context, x, y, z, e, goal) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Length of the jump on +z. The points of a line on z are sequential bits on the grid, so the line is read 64
+     * points at a time: the obstacles of the line and the forced neighbors on the four lines beside it are found with
+     * bitwise operations.
+     */
+    private int lengthForward(final int x, final int y, final int z) {
+        int line = (x * dimension + y) * dimension;
+        for (int from = z + 1; from < dimension; from += Long.SIZE) {
+            int length = Math.min(Long.SIZE, dimension - from);
+            long mask = length == Long.SIZE ? -1L : (1L << length) - 1;
+
+            long obstacles = cells.getBlockedBits(line + from) & mask;
+            long stops = forcedBits(x, y, from, from - 1) & mask;
+            if (obstacles != 0) {
+                stops &= (1L << Long.numberOfTrailingZeros(obstacles)) - 1; // points after the obstacle do not count
+            }
+            if (stops != 0) {
+                return from + Long.numberOfTrailingZeros(stops) - z;
+            }
+            if (obstacles != 0) {
+                return z + 1 - from - Long.numberOfTrailingZeros(obstacles);
+            }
+        }
+        return z + 1 - dimension;
+    }
+
+    /**
+     * Length of the jump on -z: the same of {@link #lengthForward(int, int, int)}, reading the line from the end.
+     */
+    private int lengthBackward(final int x, final int y, final int z) {
+        int line = (x * dimension + y) * dimension;
+        for (int to = z - 1; to >= 0; to -= Long.SIZE) {
+            int from = Math.max(0, to - Long.SIZE + 1);
+            int length = to - from + 1;
+            long mask = length == Long.SIZE ? -1L : (1L << length) - 1;
+
+            long obstacles = cells.getBlockedBits(line + from) & mask;
+            long stops = forcedBits(x, y, from, from + 1) & mask;
+            int last = Long.SIZE - 1 - Long.numberOfLeadingZeros(obstacles);
+            if (obstacles != 0) {
+                stops &= -1L << last << 1; // points before the obstacle do not count
+            }
+            if (stops != 0) {
+                return z - from - (Long.SIZE - 1 - Long.numberOfLeadingZeros(stops));
+            }
+            if (obstacles != 0) {
+                return from + last + 1 - z;
+            }
+        }
+        return -z;
+    }
+
+    /**
+     * Finds the forced neighbors of 64 sequential points of a line on z: bit i is set if a neighbor of the point
+     * 'from + i' on x or y is free while the same neighbor of the previous point, 'previous + i', is blocked.
+     */
+    private long forcedBits(final int x, final int y, final int from, final int previous) {
+        long forced = 0L;
+        for (int e = 0; e < 4; e++) {
+            int nx = x + DX[e];
+            int ny = y + DY[e];
+            if (nx < 0 || ny < 0 || nx >= dimension || ny >= dimension) {
+                continue;
+            }
+            int line = (nx * dimension + ny) * dimension;
+            forced |= ~cells.getBlockedBits(line + from) & cells.getBlockedBits(line + previous);
+        }
+        return forced;
+    }
+
+    private boolean isFree(final int x, final int y, final int z) {
+        int index = cells.indexOf(x, y, z);
+        return index >= 0 && !cells.isBlocked(index);
+    }
+
+    /**
+     * @return If the point is on the grid and blocked (the border does not count as an obstacle).
+     */
+    private boolean isBlocked(final int x, final int y, final int z) {
+        int index = cells.indexOf(x, y, z);
+        return index >= 0 && cells.isBlocked(index);
+    }
+
+    /**
+     * @return The direction of the straight move from one point to another.
+     */
+    private int direction(final int from, final int to) {
+        int dx = cells.getX(to) - cells.getX(from);
+        int dy = cells.getY(to) - cells.getY(from);
+        int dz = cells.getZ(to) - cells.getZ(from);
+        if (dx != 0) {
+            return dx > 0 ? 0 : 1;
+        }
+        if (dy != 0) {
+            return dy > 0 ? 2 : 3;
+        }
+        return dz > 0 ? 4 : 5;
+    }
+
+    /**
+     * Fills the straight lines between sequential jump points.
+     *
+     * @param jumpPoints Jump points from the start to the goal.
+     * @return All indexes on the path.
+     */
+    private int[] fillPath(final int[] jumpPoints) {
+        IntList path = new IntList(jumpPoints.length * 4);
+        path.add(jumpPoints[0]);
+        for (int i = 1; i < jumpPoints.length; i++) {
+            int direction = direction(jumpPoints[i - 1], jumpPoints[i]);
+            int x = cells.getX(jumpPoints[i - 1]);
+            int y = cells.getY(jumpPoints[i - 1]);
+            int z = cells.getZ(jumpPoints[i - 1]);
+            int index = jumpPoints[i - 1];
+            while (index != jumpPoints[i]) {
+                x += DX[direction];
+                y += DY[direction];
+                z += DZ[direction];
+                index = cells.indexOf(x, y, z);
+                path.add(index);
+            }
+        }
+        return path.toArray();
+    }
+
+}
@@ -0,0 +1,140 @@
+package model;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * ALT heuristic (A*, landmarks and triangle inequality). The distances from a few landmarks to every point are
+ * computed with a breadth-first search from each landmark, in parallel. For a landmark L, the triangle inequality gives
+ * |d(L, t) - d(L, n)| &lt;= d(n, t), a lower bound that follows the obstacles; the estimate is the best bound of all
+ * landmarks and the Manhattan distance.
+ * <p>
+ * The landmarks are the free points closest to the corners of the grid and then to the centers of its faces, taken on
+ * an order that keeps the first ones far apart. The distances are computed again on the next search after a point is
+ * blocked or unblocked. Each landmark keeps an int per point.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jul 04.
+ */
+class Landmarks implements Heuristic {
+
+    /**
+     * Corners and centers of the faces, as fractions of the dimension (0, 1/2 or 1 on each axis, in halves): the first
+     * ones are as far apart as possible.
+     */
+    private static final int[][] PLACES = {
+        {0, 0, 0}, {2, 2, 2}, {2, 0, 0}, {0, 2, 2}, {0, 2, 0}, {2, 0, 2}, {0, 0, 2}, {2, 2, 0},
+        {1, 1, 0}, {1, 1, 2}, {1, 0, 1}, {1, 2, 1}, {0, 1, 1}, {2, 1, 1}
+    };
+
+    private final Cells cells;
+
+    private final int count;
+
+    /**
+     * Distance from each landmark to each point, -1 if the point can not be reached from the landmark.
+     */
+    private volatile int[][] distances;
+
+    /**
+     * Grid version of the distances. Written after them, so a search that reads the current version also reads the
+     * distances of that version.
+     */
+    private volatile long version = -1;
+
+    /**
+     * Creates the heuristic. The distances are computed on the first search.
+     *
+     * @param cells Grid storage.
+     * @param count Number of landmarks, up to 14.
+     */
+    Landmarks(final Cells cells, final int count) {
+        if (count < 1 || count > PLACES.length) {
+            throw new IllegalArgumentException("Invalid number of landmarks: " + count);
+        }
+        this.cells = cells;
+        this.count = count;
+        this.distances = new int[0][];
+    }
+
+    @Override
+    public void refresh() {
+        if (version != cells.getVersion()) {
+            update(); // the lock is taken only when the distances are stale
+        }
+    }
+
+    private synchronized void update() {
+        long current = cells.getVersion();
+        if (version == current) {
+            return; // computed by another thread while this one waited
+        }
+        int[] landmarks = new int[count];
+        for (int i = 0; i < count; i++) {
+            landmarks[i] = nearestFree(PLACES[i]);
+        }
+        int[][] computed = new int[count][];
+        IntStream.range(0, count).parallel().forEach(i -> computed[i] = landmarks[i] < 0 ? null : search(landmarks[i]));
+        distances = Arrays.stream(computed).filter(d -> d != null).toArray(int[][]::new);
+        version = current;
+    }
+
+    @Override
+    public int estimate(final int index, final int target) {
+        int best = Seeker.manhattan(cells.getX(index), cells.getY(index), cells.getZ(index), cells.getX(target),
+                cells.getY(target), cells.getZ(target));
+        for (int[] distance : distances) {
+            int from = distance[index];
+            int to = distance[target];
+            if (from >= 0 && to >= 0) {
+                best = Math.max(best, Math.abs(to - from));
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return The index of the free point closest to a place of the grid or -1 if all points are blocked.
+     */
+    private int nearestFree(final int[] place) {
+        int last = cells.getDimension() - 1;
+        int x = place[0] * last / 2, y = place[1] * last / 2, z = place[2] * last / 2;
+        // distance on the high bits and index on the low bits: the minimum is the closest point, the lowest index on
+        // a tie
+        long best = IntStream.range(0, cells.size()).parallel()
+                .filter(i -> !cells.isBlocked(i))
+                .mapToLong(i -> (long) Seeker.manhattan(cells.getX(i), cells.getY(i), cells.getZ(i), x, y, z) << 32 | i)
+                .min()
+                .orElse(-1);
+        return (int) best;
+    }
+
+    /**
+     * Breadth-first search from a landmark over the whole grid.
+     *
+     * @param landmark Landmark index.
+     * @return The distance to each point, -1 where it can not be reached.
+     */
+    private int[] search(final int landmark) {
+        int[] distance = new int[cells.size()];
+        Arrays.fill(distance, -1);
+        int[] queue = new int[cells.size()];
+        int[] neighbors = new int[Cells.NEIGHBORS];
+
+        distance[landmark] = 0;
+        int head = 0, tail = 0;
+        queue[tail++] = landmark;
+        while (head < tail) {
+            int current = queue[head++];
+            cells.neighbors(current, cells.getX(current), cells.getY(current), cells.getZ(current), neighbors);
+            for (int next : neighbors) {
+                if (next >= 0 && distance[next] < 0 && !cells.isBlocked(next)) {
+                    distance[next] = distance[current] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return distance;
+    }
+
+}
@@ -0,0 +1,137 @@
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Grid storage mapped from a grid file. The flags are read straight from the mapped file, so opening a grid does not
+ * read it: the pages are loaded by the operating system when they are used, and shared with every other process that
+ * maps the same file.
+ * <p>
+ * File format (little endian):
+ * <pre>
+ * int  magic     'GRD3'
+ * int  format    1
+ * int  dimension
+ * int  (unused)
+ * long seed
+ * long (unused)
+ * long blocked[(dimension^3 + 63) / 64]  bit i of word w: point w * 64 + i is blocked
+ * </pre>
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jun 27.
+ */
+class MappedCells extends Cells {
+
+    private static final int MAGIC = 0x47524433; // GRD3
+
+    private static final int FORMAT = 1;
+
+    static final int HEADER_SIZE = 32;
+
+    private final long seed;
+
+    private final LongBuffer blocked;
+
+    private MappedCells(final int dimension, final long seed, final MappedByteBuffer buffer) {
+        super(dimension);
+        this.seed = seed;
+
+        buffer.position(HEADER_SIZE);
+        blocked = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+    }
+
+    /**
+     * Maps a grid file. Changes on the points (setBlocked) stay in this process: the file is never written. If this
+     * process can not write on the file, the points can not be changed at all.
+     *
+     * @param file Grid file.
+     * @return The grid storage.
+     * @throws IOException If the file can not be read or is not a grid file.
+     */
+    static MappedCells open(final File file) throws IOException {
+        // a private (copy on write) mapping needs a channel open for writing, even if nothing is written
+        boolean writable = file.canWrite();
+        StandardOpenOption[] options = writable
+                ? new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE}
+                : new StandardOpenOption[]{StandardOpenOption.READ};
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), options)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException(file + " is not a grid file");
+            }
+            MappedByteBuffer buffer = channel.map(writable ? FileChannel.MapMode.PRIVATE
+                    : FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT) {
+                throw new IOException(file + " is not a grid file");
+            }
+            int dimension = buffer.getInt(8);
+            long seed = buffer.getLong(16);
+            if (dimension < 0 || HEADER_SIZE + (long) words(dimension) * Long.BYTES != channel.size()) {
+                throw new IOException(file + " is truncated or corrupted");
+            }
+            return new MappedCells(dimension, seed, buffer);
+        }
+    }
+
+    /**
+     * Writes the points of a grid on a grid file.
+     *
+     * @param cells Grid storage.
+     * @param seed Seed of the grid.
+     * @param file File to write (replaced if it exists).
+     * @throws IOException If the file can not be written.
+     */
+    static void save(final Cells cells, final long seed, final File file) throws IOException {
+        int words = cells.words();
+        long length = HEADER_SIZE + (long) words * Long.BYTES;
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, FORMAT);
+            buffer.putInt(8, cells.getDimension());
+            buffer.putLong(16, seed);
+
+            buffer.position(HEADER_SIZE);
+            LongBuffer blocked = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            for (int word = 0; word < words; word++) {
+                blocked.put(word, cells.getBlockedWord(word));
+            }
+            buffer.force();
+        }
+    }
+
+    /**
+     * @return The seed saved on the file.
+     */
+    long getSeed() {
+        return seed;
+    }
+
+    @Override
+    boolean isBlocked(final int index) {
+        return (blocked.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    @Override
+    long getBlockedWord(final int word) {
+        return blocked.get(word);
+    }
+
+    @Override
+    protected void writeWord(final int word, final long bits) {
+        blocked.put(word, bits);
+    }
+
+}
@@ -0,0 +1,102 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * State of the points reached by best-first searches, by point index: the search that last reached the point, its cost
+ * from the start (g(n)) and the previous point on the best known path to it. The values of a point are valid only if
+ * it was reached by the current search, so the state is never cleaned between searches.
+ * <p>
+ * The three values of a point are kept side by side, on pages of {@link IntPages#PAGE} points allocated when a search
+ * first reaches a point of the page: reaching a point looks up a single page, and the memory follows the points
+ * reached, not the size of the grid.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jul 15.
+ */
+class NodePages {
+
+    /**
+     * Values of each point: search, g(n) and parent.
+     */
+    private static final int FIELDS = 3;
+
+    private final int[][] pages;
+
+    /**
+     * Number of pages allocated.
+     */
+    private int allocated = 0;
+
+    /**
+     * Creates the state of a grid, with no point reached.
+     *
+     * @param size Number of points in the grid.
+     */
+    NodePages(final int size) {
+        pages = new int[(int) (((long) size + IntPages.PAGE - 1) >>> IntPages.SHIFT)][];
+    }
+
+    /**
+     * Records that a search reached a point, unless the same search reached it before by a path not longer.
+     *
+     * @param index Point index.
+     * @param search Number of the search.
+     * @param g Cost from the start.
+     * @param parent Previous point on the path, -1 for the start.
+     * @return If the point was recorded.
+     */
+    boolean reach(final int index, final int search, final int g, final int parent) {
+        int[] page = pages[index >>> IntPages.SHIFT];
+        if (page == null) {
+            page = new int[IntPages.PAGE * FIELDS];
+            pages[index >>> IntPages.SHIFT] = page;
+            allocated++;
+        }
+        int at = (index & IntPages.MASK) * FIELDS;
+        if (page[at] == search && page[at + 1] <= g) {
+            return false;
+        }
+        page[at] = search;
+        page[at + 1] = g;
+        page[at + 2] = parent;
+        return true;
+    }
+
+    boolean isReached(final int index, final int search) {
+        int[] page = pages[index >>> IntPages.SHIFT];
+        return page != null && page[(index & IntPages.MASK) * FIELDS] == search;
+    }
+
+    /**
+     * @param index Index of a point reached by the current search.
+     * @return Its cost from the start.
+     */
+    int getG(final int index) {
+        return pages[index >>> IntPages.SHIFT][(index & IntPages.MASK) * FIELDS + 1];
+    }
+
+    /**
+     * @param index Index of a point reached by the current search.
+     * @return The previous point on its path, -1 for the start.
+     */
+    int getParent(final int index) {
+        return pages[index >>> IntPages.SHIFT][(index & IntPages.MASK) * FIELDS + 2];
+    }
+
+    /**
+     * @return Number of pages allocated, in pages of {@link IntPages#PAGE} values.
+     */
+    int getPages() {
+        return allocated * FIELDS;
+    }
+
+    /**
+     * Drops the pages: no point is reached by any search.
+     */
+    void release() {
+        Arrays.fill(pages, null);
+        allocated = 0;
+    }
+
+}
@@ -0,0 +1,100 @@
+package model;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * A path found on a grid: the sequence of points from the start to the end, both included.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jun 19.
+ */
+public class Path {
+
+    private final Cells cells;
+
+    private final int[] indexes;
+
+    private final int expanded;
+
+    private final long time;
+
+    /**
+     * Creates a path.
+     *
+     * @param cells Grid storage.
+     * @param indexes Indexes of the points on the path, in order.
+     * @param expanded Number of points expanded to find the path.
+     * @param time Time to find the path, in nanoseconds.
+     */
+    Path(final Cells cells, final int[] indexes, final int expanded, final long time) {
+        this.cells = cells;
+        this.indexes = indexes;
+        this.expanded = expanded;
+        this.time = time;
+    }
+
+    /**
+     * @return Number of moves between the start and the end.
+     */
+    public int getDistance() {
+        return indexes.length - 1;
+    }
+
+    /**
+     * @return Number of points expanded by the search that found this path.
+     */
+    public int getExpanded() {
+        return expanded;
+    }
+
+    /**
+     * @return Time to find this path, in nanoseconds.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * @return The same path from the end to the start, found by the same search.
+     */
+    Path reverse() {
+        int[] reversed = new int[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            reversed[i] = indexes[indexes.length - 1 - i];
+        }
+        return new Path(cells, reversed, expanded, time);
+    }
+
+    /**
+     * @param expanded Number of points expanded.
+     * @param time Time, in nanoseconds.
+     * @return The same path with other statistics: a path reused without a search reports the cost of reusing it.
+     */
+    Path withStats(final int expanded, final long time) {
+        return new Path(cells, indexes, expanded, time);
+    }
+
+    /**
+     * @return The points on this path, from the start to the end.
+     */
+    public List<Point> getPoints() {
+        return new AbstractList<Point>() {
+            @Override
+            public Point get(final int i) {
+                return cells.getPoint(indexes[i]);
+            }
+
+            @Override
+            public int size() {
+                return indexes.length;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return getPoints().toString();
+    }
+
+}
@@ -0,0 +1,139 @@
+package model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of the paths found by a seeker, keyed by the start and end points. The least recently used path is
+ * evicted when the cache is full. Every entry belongs to a version of the grid: when a point is blocked or unblocked
+ * the whole cache is dropped, so a path found on an old grid is never returned. Safe to be used by many threads.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jul 02.
+ */
+class PathCache {
+
+    /**
+     * Result of a search: the strategy used and the path found, null if there is no path.
+     */
+    static final class Result {
+
+        private final Seeker.Strategy strategy;
+
+        private final Path path;
+
+        private Result(final Seeker.Strategy strategy, final Path path) {
+            this.strategy = strategy;
+            this.path = path;
+        }
+
+        Path getPath() {
+            return path;
+        }
+
+    }
+
+    private final Cells cells;
+
+    private final Map<Long, Result> entries;
+
+    /**
+     * Grid version of the entries on the cache.
+     */
+    private long version;
+
+    private long hits = 0, misses = 0;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param cells Grid storage.
+     * @param capacity Maximum number of paths kept.
+     */
+    PathCache(final Cells cells, final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid cache capacity: " + capacity);
+        }
+        this.cells = cells;
+        this.version = cells.getVersion();
+        // access order: the first entry is the least recently used one
+        this.entries = new LinkedHashMap<Long, Result>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Long, Result> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    private static Long key(final int start, final int end) {
+        return ((long) start << 32) | (end & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Drops the entries of an old grid version.
+     */
+    private void checkVersion() {
+        long current = cells.getVersion();
+        if (version != current) {
+            entries.clear();
+            version = current;
+        }
+    }
+
+    /**
+     * Gets the result of a search made before. The path between the same points in the other direction is reused,
+     * reversed.
+     *
+     * @param strategy Strategy of the search.
+     * @param start Start index.
+     * @param end End index.
+     * @return The result found or null if the search was not made on the current grid.
+     */
+    synchronized Result get(final Seeker.Strategy strategy, final int start, final int end) {
+        checkVersion();
+        Result entry = entries.get(key(start, end));
+        if (entry == null || entry.strategy != strategy) {
+            Result back = entries.get(key(end, start));
+            entry = back == null || back.strategy != strategy ? null
+                    : new Result(strategy, back.path == null ? null : back.path.reverse());
+        }
+        if (entry == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return entry;
+    }
+
+    /**
+     * Keeps the result of a search.
+     *
+     * @param strategy Strategy of the search.
+     * @param start Start index.
+     * @param end End index.
+     * @param path Path found, null if there is no path.
+     * @param searchVersion Grid version when the search started: the result is dropped if the grid changed since.
+     */
+    synchronized void put(final Seeker.Strategy strategy, final int start, final int end, final Path path,
+            final long searchVersion) {
+        checkVersion();
+        if (searchVersion == version) {
+            entries.put(key(start, end), new Result(strategy, path));
+        }
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+}
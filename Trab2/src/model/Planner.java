@@ -0,0 +1,242 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Incremental planner (D* Lite) that keeps a path from a moving start to a fixed goal while points are blocked and
+ * unblocked. The search runs backwards, from the goal: g(n) is the distance from n to the goal and rhs(n) the best
+ * distance from n through its neighbors. A point whose g(n) and rhs(n) differ is queued, so when a point changes only
+ * its neighbors are updated and the search goes on from the queue, repairing just the part of the distances that the
+ * change affects instead of starting again.
+ * <p>
+ * The changes on the grid are collected as they happen and applied on the next call to {@link #getPath()}. A planner
+ * keeps three ints per point of the grid and is meant to be used by one thread (the one that moves the agent).
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jul 05.
+ */
+public class Planner implements CellListener {
+
+    /**
+     * Distance of the points that can not reach the goal. Low enough to add a heuristic to it without overflow.
+     */
+    private static final int INFINITY = Integer.MAX_VALUE / 4;
+
+    private final Cells cells;
+
+    private final int goal;
+
+    private int start;
+
+    /**
+     * Sum of the heuristic between the starts the agent moved through: added to the new keys, so the keys already
+     * queued stay lower bounds after the start moves.
+     */
+    private int km = 0;
+
+    private final int[] g;
+
+    private final int[] rhs;
+
+    private final IndexedHeap open;
+
+    /**
+     * Neighbors of the point being expanded and of the point whose rhs(n) is computed.
+     */
+    private final int[] neighbors = new int[Cells.NEIGHBORS], around = new int[Cells.NEIGHBORS];
+
+    /**
+     * Points changed since the last plan.
+     */
+    private final IntList changed = new IntList();
+
+    private int expanded = 0;
+
+    /**
+     * Creates a planner. The first path is looked for on the first call to {@link #getPath()}.
+     *
+     * @param cells Grid storage.
+     * @param start Start index.
+     * @param goal Goal index.
+     */
+    Planner(final Cells cells, final int start, final int goal) {
+        this.cells = cells;
+        this.start = start;
+        this.goal = goal;
+
+        g = new int[cells.size()];
+        rhs = new int[cells.size()];
+        Arrays.fill(g, INFINITY);
+        Arrays.fill(rhs, INFINITY);
+        open = new IndexedHeap(cells.size());
+
+        rhs[goal] = 0;
+        open.push(goal, key(goal));
+        cells.addListener(this);
+    }
+
+    /**
+     * Stops following the changes on the grid.
+     */
+    public void close() {
+        cells.removeListener(this);
+    }
+
+    @Override
+    public void cellChanged(final int index, final boolean blocked) {
+        synchronized (changed) {
+            changed.add(index);
+        }
+    }
+
+    /**
+     * Moves the start of the path, as the agent walks on it.
+     *
+     * @param position New start point.
+     */
+    public void moveTo(final Point position) {
+        int index = cells.indexOf(position.getX(), position.getY(), position.getZ());
+        if (index < 0) {
+            throw new IllegalArgumentException("The point is out of the grid: " + position);
+        }
+        km += heuristic(start, index);
+        start = index;
+    }
+
+    /**
+     * Gets the shortest path from the current start to the goal. Only the changes made on the grid since the last call
+     * are searched again.
+     *
+     * @return The path found or null if the goal can not be reached.
+     */
+    public Path getPath() {
+        long startTime = System.nanoTime();
+        expanded = 0;
+
+        int[] indexes;
+        synchronized (changed) {
+            indexes = changed.toArray();
+            changed.clear();
+        }
+        for (int index : indexes) {
+            // only the costs of the moves into the point changed: its neighbors have to check their rhs(n) again
+            cells.neighbors(index, cells.getX(index), cells.getY(index), cells.getZ(index), neighbors);
+            for (int neighbor : neighbors) {
+                if (neighbor >= 0) {
+                    updateRhs(neighbor);
+                }
+            }
+        }
+        computeShortestPath();
+
+        if (g[start] >= INFINITY) {
+            return null;
+        }
+        int[] path = new int[g[start] + 1];
+        path[0] = start;
+        for (int i = 1; i < path.length; i++) {
+            path[i] = bestNeighbor(path[i - 1]);
+        }
+        return new Path(cells, path, expanded, System.nanoTime() - startTime);
+    }
+
+    private void computeShortestPath() {
+        while (!open.isEmpty() && (open.peekKey() < key(start) || rhs[start] != g[start])) {
+            long oldKey = open.peekKey();
+            int u = open.peek();
+            long newKey = key(u);
+            if (oldKey < newKey) {
+                open.push(u, newKey);
+                continue;
+            }
+            expanded++;
+            open.poll();
+
+            cells.neighbors(u, cells.getX(u), cells.getY(u), cells.getZ(u), neighbors);
+            if (g[u] > rhs[u]) {
+                g[u] = rhs[u];
+                int cost = cost(u);
+                for (int s : neighbors) {
+                    if (s >= 0 && s != goal && cost + g[u] < rhs[s]) {
+                        rhs[s] = cost + g[u];
+                        update(s);
+                    }
+                }
+            } else {
+                g[u] = INFINITY;
+                updateRhs(u);
+                for (int s : neighbors) {
+                    if (s >= 0) {
+                        updateRhs(s);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes rhs(n) again from the neighbors of a point and queues it if needed.
+     */
+    private void updateRhs(final int u) {
+        if (u != goal) {
+            int next = bestNeighbor(u);
+            rhs[u] = next < 0 ? INFINITY : Math.min(INFINITY, cost(next) + g[next]);
+        }
+        update(u);
+    }
+
+    /**
+     * @return The neighbor with the lowest distance to the goal through it or -1 if no neighbor reaches the goal.
+     */
+    private int bestNeighbor(final int u) {
+        cells.neighbors(u, cells.getX(u), cells.getY(u), cells.getZ(u), around);
+        int best = -1;
+        int bestDistance = INFINITY;
+        for (int s : around) {
+            if (s >= 0 && cost(s) < INFINITY && cost(s) + g[s] < bestDistance) {
+                bestDistance = cost(s) + g[s];
+                best = s;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Queues a point if its g(n) and rhs(n) differ, removes it from the queue if not.
+     */
+    private void update(final int u) {
+        if (g[u] != rhs[u]) {
+            open.push(u, key(u));
+        } else if (open.contains(u)) {
+            open.remove(u);
+        }
+    }
+
+    /**
+     * @return Cost of a move into a point: one unit, infinite if the point is blocked.
+     */
+    private int cost(final int index) {
+        return cells.isBlocked(index) ? INFINITY : 1;
+    }
+
+    /**
+     * Key of a point: min(g(n), rhs(n)) + h(start, n) + km on the high bits and min(g(n), rhs(n)) on the low bits.
+     */
+    private long key(final int u) {
+        int distance = Math.min(g[u], rhs[u]);
+        return ((long) (distance + heuristic(start, u) + km) << 32) | distance;
+    }
+
+    private int heuristic(final int a, final int b) {
+        return Seeker.manhattan(cells.getX(a), cells.getY(a), cells.getZ(a), cells.getX(b), cells.getY(b),
+                cells.getZ(b));
+    }
+
+    /**
+     * @return Number of points expanded by the last call to {@link #getPath()}.
+     */
+    public int getExpanded() {
+        return expanded;
+    }
+
+}
@@ -9,25 +9,42 @@ public class Point {
 
     private final int x, y, z;
 
-    private boolean blocked = false;
-
-    private boolean visited = false;
+    /**
+     * Storage that keeps the flags of this point or null if this point is not on a grid.
+     */
+    private final Cells cells;
 
-    private final String key;
+    /**
+     * Index of this point on the storage.
+     */
+    private final int index;
 
     /**
-     * Creates a 3D point.
+     * Creates a 3D point that does not belong to any grid.
      *
      * @param x X coordinate.
      * @param y Y coordinate.
      * @param z Z coordinate.
      */
     public Point(final int x, final int y, final int z) {
+        this(null, -1, x, y, z);
+    }
+
+    /**
+     * Creates a view of a point on a grid.
+     *
+     * @param cells Grid storage.
+     * @param index Index of the point on the storage.
+     * @param x X coordinate.
+     * @param y Y coordinate.
+     * @param z Z coordinate.
+     */
+    Point(final Cells cells, final int index, final int x, final int y, final int z) {
+        this.cells = cells;
+        this.index = index;
         this.x = x;
         this.y = y;
         this.z = z;
-
-        key = "P(" + x + ", " + y + ", " + z + ")";
     }
 
     /**
@@ -52,10 +69,17 @@ public class Point {
     }
 
     /**
-     * @return Returns if this point is blocked or not.
+     * @return The index of this point on the grid or -1 if it does not belong to a grid.
+     */
+    int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return Returns if this point is blocked or not. A point out of a grid is never blocked.
      */
     public boolean isBlocked() {
-        return blocked;
+        return cells != null && cells.isBlocked(index);
     }
 
     /**
@@ -64,23 +88,14 @@ public class Point {
      * @param blocked Flag to set.
      */
     public void setBlocked(final boolean blocked) {
-        this.blocked = blocked;
+        checkOnGrid();
+        cells.setBlocked(index, blocked);
     }
 
-    /**
-     * @return Returns if this point was visited or not.
-     */
-    public boolean isVisited() {
-        return visited;
-    }
-
-    /**
-     * Sets if this point was visited or not.
-     *
-     * @param visited Flag to set.
-     */
-    public void setVisited(final boolean visited) {
-        this.visited = visited;
+    private void checkOnGrid() {
+        if (cells == null) {
+            throw new IllegalStateException(getKey() + " does not belong to a grid");
+        }
     }
 
     /**
@@ -124,15 +139,15 @@ public class Point {
      * @return The unique key for this point.
      */
     public String getKey() {
-        return key;
+        return "P(" + x + ", " + y + ", " + z + ")";
     }
 
     @Override
     public String toString() {
-        if (blocked) {
-            return key + " blocked";
+        if (isBlocked()) {
+            return getKey() + " blocked";
         }
-        return key;
+        return getKey();
     }
 
 }
@@ -0,0 +1,43 @@
+package model;
+
+/**
+ * A pair of points to look for a path.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jun 21.
+ */
+public class Query {
+
+    private final Point start, end;
+
+    /**
+     * Creates a query.
+     *
+     * @param start Start point.
+     * @param end End point.
+     */
+    public Query(final Point start, final Point end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * @return The start point.
+     */
+    public Point getStart() {
+        return start;
+    }
+
+    /**
+     * @return The end point.
+     */
+    public Point getEnd() {
+        return end;
+    }
+
+    @Override
+    public String toString() {
+        return start + " -> " + end;
+    }
+
+}
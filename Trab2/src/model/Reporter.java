@@ -1,8 +1,6 @@
 package model;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  *
@@ -12,14 +10,31 @@ import java.util.Map;
 public class Reporter {
 
     /**
-     * Keep the sum of time for each distance.
+     * Minimum number of samples of a distance to show it on the report.
      */
-    private final Map<Integer, Long> distanceTime = new HashMap<>();
+    private static final int MIN_SAMPLES = 50;
 
     /**
-     * Keep the number of samples for each distance.
+     * Samples of one distance.
      */
-    private final Map<Integer, Integer> distanceSamplesNumber = new HashMap<>();
+    private static class DistanceSamples {
+
+        /**
+         * Time to find the distance.
+         */
+        private final Histogram time = new Histogram();
+
+        /**
+         * Number of points expanded to find the distance.
+         */
+        private final Histogram expanded = new Histogram();
+
+    }
+
+    /**
+     * Keep the samples for each distance: the samples of distance 'd' are at the position 'd'.
+     */
+    private volatile AtomicReferenceArray<DistanceSamples> distanceSamples = new AtomicReferenceArray<>(64);
 
     /**
      * Default construct.
@@ -29,42 +44,79 @@ public class Reporter {
     }
 
     /**
-     * Add a time sample.
+     * Add a sample. Safe to be called by many threads and does not allocate, except for the first sample of a
+     * distance.
      *
      * @param distance Given distance.
      * @param time Time to find the distance.
+     * @param expanded Number of points expanded to find the distance.
      */
-    public void addSample(final Integer distance, final Long time) {
-        Long sumTime = time;
-        int samples = 1;
-        if (distanceTime.containsKey(distance)) {
-            sumTime += distanceTime.get(distance);
+    public void addSample(final int distance, final long time, final int expanded) {
+        DistanceSamples samples = getSamples(distance);
+        samples.time.record(time);
+        samples.expanded.record(expanded);
+    }
 
-            samples += distanceSamplesNumber.get(distance);
+    private DistanceSamples getSamples(final int distance) {
+        AtomicReferenceArray<DistanceSamples> all = distanceSamples;
+        if (distance < all.length()) {
+            DistanceSamples samples = all.get(distance);
+            if (samples != null) {
+                return samples;
+            }
         }
-        distanceTime.put(distance, sumTime); // update
-        distanceSamplesNumber.put(distance, samples);
+        return createSamples(distance);
+    }
+
+    private synchronized DistanceSamples createSamples(final int distance) {
+        AtomicReferenceArray<DistanceSamples> all = distanceSamples;
+        if (distance >= all.length()) {
+            AtomicReferenceArray<DistanceSamples> bigger = new AtomicReferenceArray<>(Math.max(distance + 1,
+                    all.length() * 2));
+            for (int i = 0; i < all.length(); i++) {
+                bigger.set(i, all.get(i));
+            }
+            all = bigger;
+            distanceSamples = bigger;
+        }
+        DistanceSamples samples = all.get(distance);
+        if (samples == null) {
+            samples = new DistanceSamples();
+            all.set(distance, samples);
+        }
+        return samples;
     }
 
     @Override
     public String toString() {
-        Iterator<Map.Entry<Integer, Long>> it = distanceTime.entrySet().iterator();
+        AtomicReferenceArray<DistanceSamples> all = distanceSamples;
 
         StringBuilder builder = new StringBuilder();
 
-        while (it.hasNext()) {
-            Map.Entry<Integer, Long> next = it.next();
+        for (int distance = 0; distance < all.length(); distance++) {
+            DistanceSamples current = all.get(distance);
+            if (current == null) {
+                continue;
+            }
 
-            Integer distance = next.getKey();
-            Integer totalTime = next.getKey();
+            Histogram histogram = current.time;
+            Histogram expanded = current.expanded;
 
-            Integer samples = distanceSamplesNumber.get(distance);
+            long samples = histogram.getSamples();
+            long totalTime = histogram.getSum();
 
-            if (samples >= 50) {
+            if (samples >= MIN_SAMPLES) {
                 builder.append("------------------------------------\n");
                 builder.append("distance: ").append(distance).append(" samples: ").append(samples).append("\n");
                 builder.append("total time: ").append(totalTime).append("\n");
                 builder.append("average time: ").append(((double) totalTime) / samples).append("\n");
+                builder.append("p50: ").append(histogram.getPercentile(0.5))
+                        .append(" p99: ").append(histogram.getPercentile(0.99))
+                        .append(" p99.9: ").append(histogram.getPercentile(0.999))
+                        .append(" max: ").append(histogram.getMax()).append("\n");
+                builder.append("average expanded points: ").append(((double) expanded.getSum()) / samples)
+                        .append(" p99: ").append(expanded.getPercentile(0.99))
+                        .append(" max: ").append(expanded.getMax()).append("\n");
             }
         }
 
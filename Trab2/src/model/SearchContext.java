@@ -0,0 +1,249 @@
+package model;
+
+/**
+ * State of a search on a grid. The grid itself is only read while searching, so each thread keeps its own context and
+ * many searches can run over the same grid at the same time. A context is reused by the next searches of its thread;
+ * its arrays are allocated when a strategy needs them for the first time.
+ * <p>
+ * The state kept by point is split in pages ({@link IntPages}, {@link NodePages}), allocated when a search first
+ * reaches a point of the page: the memory of a context follows the points its searches reach, not the size of the
+ * grid. The pages are kept for the next searches, unless they are more than {@link #MAX_PAGES}.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jun 21.
+ */
+class SearchContext {
+
+    /**
+     * Number of pages kept between searches: 32 MB.
+     */
+    private static final int MAX_PAGES = 1 << 13;
+
+    private final int size;
+
+    /**
+     * Points already visited by the greedy walk, one bit per point.
+     */
+    private final IntPages visited;
+
+    /**
+     * Words of {@link #visited} set by the current walk, cleaned by the next one.
+     */
+    private final IntList visitedWords = new IntList(64);
+
+    /**
+     * Points on the current path of the greedy walk, used as a stack: the last one is the current point.
+     */
+    final IntList stack = new IntList(64);
+
+    /**
+     * Object point of the greedy walk. (final state)
+     */
+    int end;
+
+    /**
+     * Neighbors of the point being expanded, see {@link Cells#neighbors(int, int, int, int, int[])}.
+     */
+    final int[] neighbors = new int[Cells.NEIGHBORS];
+
+    /**
+     * Open set of the A* search.
+     */
+    IndexedHeap open;
+
+    /**
+     * Points reached by the A* search: cost from the start and previous point on the best known path.
+     */
+    NodePages nodes;
+
+    /**
+     * The same as {@link #open} and {@link #nodes}, for the search from the end of the bidirectional search.
+     */
+    IndexedHeap openBack;
+
+    NodePages nodesBack;
+
+    /**
+     * Lengths of the jumps of the Jump Point Search, kept between searches while the grid does not change.
+     */
+    JumpPages jumps;
+
+    /**
+     * Free flags, distances and queue of the breadth-first searches inside a cluster of the hierarchical search, by
+     * index inside the cluster.
+     */
+    boolean[] boxFree;
+
+    int[] boxDistance, boxQueue;
+
+    /**
+     * Open set, cost from the start, previous node and last search of each node of the abstract graph of the
+     * hierarchical search. They grow with the graph.
+     */
+    IndexedHeap abstractOpen;
+
+    int[] abstractG, abstractParent, abstractReached;
+
+    /**
+     * Number of the current search on the abstract graph.
+     */
+    int abstractSearch = 0;
+
+    /**
+     * Number of points expanded by the current search.
+     */
+    int expanded = 0;
+
+    /**
+     * Number of the current search.
+     */
+    int search = 0;
+
+    /**
+     * Creates a context for a grid.
+     *
+     * @param size Number of points in the grid.
+     */
+    SearchContext(final int size) {
+        this.size = size;
+        visited = new IntPages((int) (((long) size + Integer.SIZE - 1) / Integer.SIZE));
+    }
+
+    /**
+     * Drops the pages of the last searches if they are too many: the first pages the next search reaches are
+     * allocated again.
+     */
+    private void trim() {
+        int pages = visited.getPages();
+        if (open != null) {
+            pages += open.getPages() + nodes.getPages();
+        }
+        if (openBack != null) {
+            pages += openBack.getPages() + nodesBack.getPages();
+        }
+        if (jumps != null) {
+            pages += jumps.getPages();
+        }
+        if (pages <= MAX_PAGES) {
+            return;
+        }
+        visited.release();
+        visitedWords.clear();
+        if (open != null) {
+            open.release();
+            nodes.release();
+        }
+        if (openBack != null) {
+            openBack.release();
+            nodesBack.release();
+        }
+        if (jumps != null) {
+            jumps.release();
+        }
+    }
+
+    /**
+     * Prepares the context for a new greedy walk.
+     *
+     * @param end Index of the object point.
+     */
+    void startWalk(final int end) {
+        trim();
+        while (!visitedWords.isEmpty()) {
+            visited.update(visitedWords.pop(), 0);
+        }
+        stack.clear();
+        this.end = end;
+        expanded = 0;
+    }
+
+    boolean isVisited(final int index) {
+        return (visited.get(index >>> 5) & (1 << index)) != 0;
+    }
+
+    void setVisited(final int index) {
+        int word = visited.get(index >>> 5);
+        if (word == 0) {
+            visitedWords.add(index >>> 5);
+        }
+        visited.set(index >>> 5, word | 1 << index);
+    }
+
+    /**
+     * Prepares the context for a new best-first search. The state is not cleaned: a point is reached only if
+     * {@link #nodes} holds the number of the current search for it.
+     */
+    void startSearch() {
+        trim();
+        nextSearch();
+        expanded = 0;
+    }
+
+    /**
+     * Starts a new best-first search, keeping the number of points expanded: used by strategies made of many
+     * searches.
+     */
+    void nextSearch() {
+        if (open == null) {
+            open = new IndexedHeap(size);
+            nodes = new NodePages(size);
+        }
+        open.clear();
+        search++;
+    }
+
+    /**
+     * Prepares the context for a new bidirectional search.
+     */
+    void startBidirectionalSearch() {
+        startSearch();
+        if (openBack == null) {
+            openBack = new IndexedHeap(size);
+            nodesBack = new NodePages(size);
+        }
+        openBack.clear();
+    }
+
+    /**
+     * Prepares the context for a new Jump Point Search.
+     */
+    void startJumpSearch() {
+        startSearch();
+        if (jumps == null) {
+            jumps = new JumpPages(size);
+        }
+    }
+
+    /**
+     * Prepares the context for a new hierarchical search.
+     *
+     * @param volume Number of points in a cluster.
+     */
+    void startBoxSearch(final int volume) {
+        if (boxDistance == null || boxDistance.length != volume) {
+            boxFree = new boolean[volume];
+            boxDistance = new int[volume];
+            boxQueue = new int[volume];
+        }
+        expanded = 0;
+    }
+
+    /**
+     * Prepares the context for a new search on the abstract graph of the hierarchical search.
+     *
+     * @param nodes Number of nodes on the graph.
+     */
+    void startAbstractSearch(final int nodes) {
+        if (abstractOpen == null || abstractG.length < nodes) {
+            int capacity = Math.max(nodes, abstractOpen == null ? 0 : abstractG.length * 2);
+            abstractOpen = new IndexedHeap(capacity);
+            abstractG = new int[capacity];
+            abstractParent = new int[capacity];
+            abstractReached = new int[capacity];
+            abstractSearch = 0;
+        }
+        abstractOpen.clear();
+        abstractSearch++;
+    }
+
+}
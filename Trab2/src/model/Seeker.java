@@ -1,7 +1,9 @@
 package model;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 /**
  *
@@ -10,190 +12,699 @@ import java.util.List;
  */
 public abstract class Seeker {
 
+    /**
+     * Strategies to look for a path.
+     */
+    public enum Strategy {
+
+        /**
+         * Walks always to the neighbor closest to the end, going back when stuck. Fast, but the path is not the
+         * shortest one.
+         */
+        GREEDY,
+        /**
+         * A* search: always finds the shortest path.
+         */
+        A_STAR,
+        /**
+         * A* searches from both points at the same time, until the two frontiers meet: always finds the shortest path
+         * and expands fewer points than a single search when the points are far apart.
+         */
+        BIDIRECTIONAL,
+        /**
+         * A* over jump points: straight lines of free points are crossed in one step and only the points where the
+         * path may turn are put on the open set. Always finds the shortest path. On a grid without obstacles it expands
+         * a few points per path, but with random obstacles most points have a forced neighbor: from 10% blocked on,
+         * it expands only 20% to 35% fewer points than A*. The jump lengths are kept between searches until the
+         * grid changes, so the first searches on a grid are the slowest.
+         */
+        JUMP_POINT,
+        /**
+         * Hierarchical path finding (HPA*): looks for a path on a small graph of the entrances between clusters of the
+         * grid and then refines it inside each cluster. Expands fewer points than A* on big grids, most of all with
+         * many obstacles, but the path is close to the shortest one, not always the shortest.
+         */
+        HIERARCHICAL
+
+    }
+
+    /**
+     * Heuristic of the A* searches.
+     */
+    public enum HeuristicType {
+
+        /**
+         * Number of moves without obstacles. Cheap and the default.
+         */
+        MANHATTAN,
+        /**
+         * Straight line distance, rounded down: lower than the Manhattan distance, so more points are expanded.
+         */
+        EUCLIDEAN,
+        /**
+         * Bounds from the distances to a few landmarks (ALT), computed once for the grid: they follow the obstacles, so
+         * fewer points are expanded on grids with many of them.
+         */
+        LANDMARKS
+
+    }
+
     /**
      * Unit to measure the distance between two sequential points.
      */
     private static final byte UNIT = 1;
 
     /**
-     * All points in the grid.
+     * Order the greedy walk tries the neighbors (top, bottom, front, back, left, right): the first one wins a tie.
      */
-    protected final List<Point> points = new ArrayList<>();
+    private static final int[] GREEDY_ORDER = {3, 2, 5, 4, 0, 1};
 
-    private int totalSamples = 0;
+    /**
+     * Number of points per axis of the clusters of the hierarchical search, if not given.
+     */
+    private static final int CLUSTER_SIZE = 8;
+
+    /**
+     * Number of landmarks of the {@link HeuristicType#LANDMARKS} heuristic, if not given.
+     */
+    private static final int LANDMARKS = 8;
 
     /**
-     * Visited points.
+     * All points in the grid.
      */
-    private final List<Point> visited = new ArrayList<>();
+    protected final Cells cells;
+
+    private final AtomicInteger totalSamples = new AtomicInteger();
 
     private final Reporter report = new Reporter();
 
+    private volatile Strategy strategy = Strategy.GREEDY;
+
+    private volatile Heuristic heuristic;
+
+    /**
+     * Search state of each thread.
+     */
+    private final ThreadLocal<SearchContext> contexts;
+
+    private final JumpPointSearch jumpPoints;
+
+    /**
+     * Abstract graph of the hierarchical search, built on its first use.
+     */
+    private volatile Hierarchy hierarchy;
+
+    /**
+     * Connected components of the grid, built when first needed: by a search with the connectivity check enabled or by
+     * {@link #isConnected(Point, Point)}.
+     */
+    private volatile Components components;
+
+    /**
+     * If the connected components are checked before each search.
+     */
+    private volatile boolean connectivity = false;
+
     /**
-     * Object point. (final state)
+     * Paths found before, null if the cache is disabled.
      */
-    private Point end;
+    private volatile PathCache cache;
 
     /**
-     * Default construct.
+     * Creates a seeker for a cubic grid.
+     *
+     * @param dimension Number of points per axis.
      */
-    public Seeker() {
-        // empty
+    public Seeker(final int dimension) {
+        this(new HeapCells(dimension));
+    }
+
+    /**
+     * Creates a seeker for the given grid storage.
+     *
+     * @param cells Grid storage.
+     */
+    Seeker(final Cells cells) {
+        this.cells = cells;
+        contexts = ThreadLocal.withInitial(() -> new SearchContext(cells.size()));
+        jumpPoints = new JumpPointSearch(cells);
+        heuristic = Heuristic.manhattan(cells);
     }
 
     /**
      * Gets the given point copy on the grid.
      *
      * @param p Given point.
-     * @return The point on the grid that represents the given point.
+     * @return The point on the grid that represents the given point or null if it is out of the grid.
      */
     private Point getPoint(final Point p) {
-        for (Point point : points) {
-            if (point.equals(p)) {
-                return point;
+        int index = cells.indexOf(p.getX(), p.getY(), p.getZ());
+        if (index < 0) {
+            return null;
+        }
+        return cells.getPoint(index);
+    }
+
+    /**
+     * @param p Given point.
+     * @return True if the given point is on the grid.
+     */
+    public boolean contains(final Point p) {
+        return p != null && cells.indexOf(p.getX(), p.getY(), p.getZ()) >= 0;
+    }
+
+    /**
+     * Sets the strategy used by the next searches.
+     *
+     * @param strategy Strategy to use.
+     */
+    public void setStrategy(final Strategy strategy) {
+        if (strategy != null) {
+            this.strategy = strategy;
+        }
+    }
+
+    /**
+     * Builds the abstract graph used by the hierarchical strategy. It follows the points blocked or unblocked after it
+     * is built, updating only the clusters around them. Built with clusters of 8 points per axis on the first
+     * hierarchical search if this method is not called.
+     *
+     * @param clusterSize Number of points per axis of each cluster.
+     */
+    public synchronized void buildHierarchy(final int clusterSize) {
+        Hierarchy old = hierarchy;
+        hierarchy = new Hierarchy(cells, clusterSize);
+        if (old != null) {
+            old.close();
+        }
+    }
+
+    private Hierarchy getHierarchy() {
+        Hierarchy h = hierarchy;
+        if (h == null) {
+            synchronized (this) {
+                if (hierarchy == null) {
+                    hierarchy = new Hierarchy(cells, CLUSTER_SIZE);
+                }
+                h = hierarchy;
             }
         }
-        return null;
+        return h;
     }
 
-    private void reset() {
-        visited.clear();
+    private Components getComponents() {
+        Components c = components;
+        if (c == null) {
+            synchronized (this) {
+                if (components == null) {
+                    components = new Components(cells);
+                }
+                c = components;
+            }
+        }
+        return c;
+    }
 
-        end = null;
+    /**
+     * The components take two ints per point, so only grids kept on the heap are labeled: a mapped or tiled grid may
+     * not even fit in memory.
+     *
+     * @return If the connected components of the grid can be labeled.
+     */
+    private boolean hasComponents() {
+        return cells instanceof HeapCells;
+    }
 
-        for (Point p : points) {
-            p.setVisited(false);
+    /**
+     * Checks the connected components of the grid before each search, so a query between points that are not
+     * connected is answered at once instead of exploring everything reachable from the start. The components are
+     * labeled on the next search, in parallel, and then follow the points blocked or unblocked. Ignored for mapped and
+     * tiled grids. Disabled by default.
+     *
+     * @param enabled If the components are checked.
+     */
+    public synchronized void setConnectivity(final boolean enabled) {
+        connectivity = enabled && hasComponents();
+        if (!enabled && components != null) {
+            components.close();
+            components = null;
         }
     }
 
     /**
-     * Look for a path between two points.
+     * Tells if there is a path between two points. On grids kept on the heap, the connected components are labeled
+     * on the first call (or the first search with the connectivity check) and answer without a search; on mapped and
+     * tiled grids an A* search is made.
      *
      * @param start Start point.
      * @param end End point.
+     * @return True if the points are on the grid and there is a path between them.
+     */
+    public boolean isConnected(final Point start, final Point end) {
+        Point from = getPoint(start);
+        Point to = getPoint(end);
+        if (from == null || to == null) {
+            return false;
+        }
+        if (hasComponents()) {
+            return getComponents().connected(from.getIndex(), to.getIndex());
+        }
+        return from.equals(to) ? !cells.isBlocked(to.getIndex())
+                : lookAStar(contexts.get(), heuristic(), from.getIndex(), to.getIndex()) != null;
+    }
+
+    /**
+     * Enables the cache of the paths found, so a query repeated (in any direction) is answered without a search while
+     * no point is blocked or unblocked. The least recently used paths are dropped when the cache is full. A path
+     * answered by the cache counts on the report and on {@link #getTotalSamples()} as any other, with no point
+     * expanded and the time of the lookup. Disabled by default.
+     *
+     * @param capacity Maximum number of paths kept, 0 to disable the cache.
      */
-    public void lookPath(final Point start, final Point end) {
+    public void setCacheSize(final int capacity) {
+        cache = capacity > 0 ? new PathCache(cells, capacity) : null;
+    }
+
+    /**
+     * @return Number of queries answered by the cache.
+     */
+    public long getCacheHits() {
+        PathCache c = cache;
+        return c == null ? 0 : c.getHits();
+    }
+
+    /**
+     * @return Number of queries not found on the cache.
+     */
+    public long getCacheMisses() {
+        PathCache c = cache;
+        return c == null ? 0 : c.getMisses();
+    }
+
+    /**
+     * Sets the heuristic used by the next A* and bidirectional searches. The other strategies keep their own.
+     *
+     * @param type Heuristic to use; landmarks are 8.
+     */
+    public void setHeuristic(final HeuristicType type) {
+        if (type == HeuristicType.LANDMARKS) {
+            setLandmarks(LANDMARKS);
+        } else if (type == HeuristicType.EUCLIDEAN) {
+            heuristic = Heuristic.euclidean(cells);
+        } else {
+            heuristic = Heuristic.manhattan(cells);
+        }
+    }
+
+    /**
+     * Uses the landmarks heuristic on the next A* and bidirectional searches. The distances from the landmarks are
+     * computed on the next search and again after a point is blocked or unblocked.
+     *
+     * @param count Number of landmarks, from 1 to 14.
+     */
+    public void setLandmarks(final int count) {
+        heuristic = new Landmarks(cells, count);
+    }
+
+    /**
+     * Creates an incremental planner between two points. The planner keeps its search between calls, so after points
+     * are blocked or unblocked, or after the start moves, the next path costs a fraction of a new search.
+     *
+     * @param start Start point.
+     * @param end End point.
+     * @return The planner, following the changes on the grid until it is closed.
+     */
+    public Planner plan(final Point start, final Point end) {
+        Point from = getPoint(start);
+        Point to = getPoint(end);
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("The grid does not contain all the given points");
+        }
+        return new Planner(cells, from.getIndex(), to.getIndex());
+    }
+
+    /**
+     * @return The strategy used to look for paths.
+     */
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Look for a path between two points. Searches do not change the grid, so this method can be called by many
+     * threads at the same time, as long as no point is blocked or unblocked while they run. Points on different
+     * connected components are answered without a search if the connectivity check is enabled (see
+     * {@link #setConnectivity(boolean)}).
+     *
+     * @param start Start point.
+     * @param end End point.
+     * @return The path found or null if there is no path between the points.
+     */
+    public Path lookPath(final Point start, final Point end) {
         if (start == null || end == null) {
             System.out.println("Erro: dois valores não nulos são esperados");
-            return;
+            return null;
         }
 
-        if (!points.contains(start) || !points.contains(end)) {
+        Point from = getPoint(start);
+        Point to = getPoint(end);
+
+        if (from == null || to == null) {
             System.out.println("O grid não contém todos os pontos dados");
-            return;
+            return null;
         }
 
         if (start.equals(end)) {
             System.out.println("O ponto inicial é igual ao final");
-            return;
+            return null;
         }
 
-        reset();
+        if (cells.isBlocked(to.getIndex())) {
+            return null; // no search reaches a blocked point
+        }
 
-        this.end = end;
+        if (connectivity && !getComponents().connected(from.getIndex(), to.getIndex())) {
+            return null;
+        }
 
+        Strategy current = strategy;
+        PathCache c = cache;
         long startTime = System.nanoTime();
-        boolean look = look(start);
+        if (c != null) {
+            PathCache.Result cached = c.get(current, from.getIndex(), to.getIndex());
+            if (cached != null) {
+                if (cached.getPath() == null) {
+                    return null;
+                }
+                Path path = cached.getPath().withStats(0, System.nanoTime() - startTime);
+                addSample(path);
+                return path;
+            }
+        }
+        long version = cells.getVersion();
+
+        SearchContext context = contexts.get();
+
+        int[] indexes;
+        switch (current) {
+            case A_STAR:
+                indexes = lookAStar(context, heuristic(), from.getIndex(), to.getIndex());
+                break;
+            case BIDIRECTIONAL:
+                indexes = lookBidirectional(context, heuristic(), from.getIndex(), to.getIndex());
+                break;
+            case JUMP_POINT:
+                indexes = jumpPoints.look(context, from.getIndex(), to.getIndex());
+                break;
+            case HIERARCHICAL:
+                indexes = getHierarchy().look(context, from.getIndex(), to.getIndex());
+                break;
+            default:
+                indexes = lookGreedy(context, from.getIndex(), to.getIndex());
+                break;
+        }
         long endTime = System.nanoTime();
-        if (look) {
-            int distance = visited.size() * UNIT;
-            report.addSample(distance, endTime - startTime);
-            totalSamples++;
+        if (indexes == null) {
+            if (c != null) {
+                c.put(current, from.getIndex(), to.getIndex(), null, version);
+            }
+            return null;
         }
+
+        Path path = new Path(cells, indexes, context.expanded, endTime - startTime);
+        addSample(path);
+        if (c != null) {
+            c.put(current, from.getIndex(), to.getIndex(), path, version);
+        }
+        return path;
+    }
+
+    private void addSample(final Path path) {
+        int distance = path.getDistance() * UNIT;
+        report.addSample(distance, path.getTime(), path.getExpanded());
+        totalSamples.incrementAndGet();
+    }
+
+    private Heuristic heuristic() {
+        Heuristic h = heuristic;
+        h.refresh();
+        return h;
+    }
+
+    /**
+     * Look for the paths of many queries at once. The queries run in parallel on the common fork/join pool.
+     *
+     * @param queries Pairs of points to look for a path.
+     * @return The path found for each query, in the same order of the queries (null where there is no path).
+     */
+    public List<Path> lookPaths(final List<Query> queries) {
+        return queries.parallelStream()
+                .map(q -> lookPath(q.getStart(), q.getEnd()))
+                .collect(Collectors.toList());
     }
 
     /**
      * @return The number of samples analyzed.
      */
     public int getTotalSamples() {
-        return totalSamples;
+        return totalSamples.get();
     }
 
-    private boolean look(final Point p) {
-        if (p == null) {
-            return false;
-        }
-
-        if (p.equals(end)) {
-            return true;
-        }
+    private int[] lookGreedy(final SearchContext context, final int start, final int end) {
+        context.startWalk(end);
 
-        if (!p.isVisited()) {
-            p.setVisited(true);
-            visited.add(p);
+        if (!look(context, start)) {
+            return null;
         }
 
-        Point bestPoint = getBestPoint(p);
+        context.stack.add(end);
+        return context.stack.toArray();
+    }
 
-        if (bestPoint == null) { // no valid neighbor to visit
-            visited.remove(p);
-            bestPoint = getLastVisited();
+    /**
+     * A* search from start to goal. The open set is a binary heap ordered by f(n) = g(n) + h(n), where h(n) is the
+     * given heuristic: it never overestimates the number of moves, so the first time the goal leaves the open set its
+     * path is the shortest one. Ties are broken by the lowest h(n).
+     *
+     * @param context Search state.
+     * @param heuristic Estimate of the distance to the goal.
+     * @param start Start index.
+     * @param goal Goal index.
+     * @return The indexes on the shortest path or null if the goal can not be reached.
+     */
+    private int[] lookAStar(final SearchContext context, final Heuristic heuristic, final int start,
+            final int goal) {
+        context.startSearch();
+        IndexedHeap open = context.open;
+        NodePages nodes = context.nodes;
+        int[] neighbors = context.neighbors;
+        int search = context.search;
+
+        nodes.reach(start, search, 0, -1);
+        open.push(start, key(0, heuristic.estimate(start, goal)));
+
+        while (!open.isEmpty()) {
+            int current = open.poll();
+            if (current == goal) {
+                return buildPath(nodes, goal);
+            }
+            context.expanded++;
+
+            int x = cells.getX(current);
+            int y = cells.getY(current);
+            int z = cells.getZ(current);
+            int g = nodes.getG(current) + UNIT;
+            cells.neighbors(current, x, y, z, neighbors);
+
+            for (int k = 0; k < Cells.NEIGHBORS; k++) {
+                int next = neighbors[k];
+                if (next < 0 || cells.isBlocked(next)) {
+                    continue;
+                }
+                if (!nodes.reach(next, search, g, current)) {
+                    continue; // already reached by a path not longer than this one
+                }
+                open.push(next, key(g, heuristic.estimate(next, goal)));
+            }
         }
-        return look(bestPoint);
+        return null;
     }
 
-    private List<Point> getNeighbors(final Point p) {
-        Point top = new Point(p.getX(), p.getY() + UNIT, p.getZ());
-        Point bottom = new Point(p.getX(), p.getY() - UNIT, p.getZ());
-        Point front = new Point(p.getX(), p.getY(), p.getZ() + UNIT);
-        Point back = new Point(p.getX(), p.getY(), p.getZ() - UNIT);
-        Point left = new Point(p.getX() - UNIT, p.getY(), p.getZ());
-        Point right = new Point(p.getX() + UNIT, p.getY(), p.getZ());
+    static int manhattan(final int x, final int y, final int z, final int gx, final int gy, final int gz) {
+        return (Math.abs(x - gx) + Math.abs(y - gy) + Math.abs(z - gz)) * UNIT;
+    }
 
-        List<Point> neighbors = new ArrayList<>();
+    /**
+     * Key on the open set: f(n) on the high bits and h(n) on the low bits to break ties.
+     */
+    static long key(final int g, final int h) {
+        return ((long) (g + h) << 32) | h;
+    }
 
-        Point[] candidates = new Point[]{top, bottom, front, back, left, right};
+    static int[] buildPath(final NodePages nodes, final int goal) {
+        int length = 0;
+        for (int i = goal; i >= 0; i = nodes.getParent(i)) {
+            length++;
+        }
+        int[] indexes = new int[length];
+        for (int i = goal; i >= 0; i = nodes.getParent(i)) {
+            indexes[--length] = i;
+        }
+        return indexes;
+    }
 
-        for (Point point : candidates) {
-            Point neighbor = getPoint(point);
+    /**
+     * Bidirectional A* search: one A* from the start towards the goal and another one from the goal towards the start,
+     * expanding a point of the smallest open set at a time. Every point reached by both searches is a meeting, and the
+     * best meeting is the shortest path as soon as it is not longer than the lowest f(n) of one of the open sets: any
+     * other path has to go through a point still open on both sides.
+     *
+     * @param context Search state.
+     * @param heuristic Estimate of the distance to the goal and back to the start.
+     * @param start Start index.
+     * @param goal Goal index.
+     * @return The indexes on the shortest path or null if the goal can not be reached.
+     */
+    private int[] lookBidirectional(final SearchContext context, final Heuristic heuristic, final int start,
+            final int goal) {
+        context.startBidirectionalSearch();
+        int search = context.search;
+
+        context.nodes.reach(start, search, 0, -1);
+        context.open.push(start, key(0, heuristic.estimate(start, goal)));
+
+        context.nodesBack.reach(goal, search, 0, -1);
+        context.openBack.push(goal, key(0, heuristic.estimate(goal, start)));
+
+        int[] neighbors = context.neighbors;
+        int best = Integer.MAX_VALUE;
+        int meeting = -1;
+
+        while (!context.open.isEmpty() && !context.openBack.isEmpty()) {
+            int lowestF = (int) (context.open.peekKey() >>> 32);
+            int lowestBack = (int) (context.openBack.peekKey() >>> 32);
+            if (best <= Math.max(lowestF, lowestBack)) {
+                break;
+            }
 
-            if (neighbor != null && !neighbor.isBlocked() && !neighbor.isVisited()) {
-                neighbors.add(neighbor);
+            boolean forward = context.open.size() <= context.openBack.size();
+            IndexedHeap open = forward ? context.open : context.openBack;
+            NodePages nodes = forward ? context.nodes : context.nodesBack;
+            NodePages other = forward ? context.nodesBack : context.nodes;
+            int target = forward ? goal : start;
+
+            int current = open.poll();
+            context.expanded++;
+
+            int x = cells.getX(current);
+            int y = cells.getY(current);
+            int z = cells.getZ(current);
+            int g = nodes.getG(current) + UNIT;
+            cells.neighbors(current, x, y, z, neighbors);
+
+            for (int k = 0; k < Cells.NEIGHBORS; k++) {
+                int next = neighbors[k];
+                if (next < 0 || cells.isBlocked(next) || !nodes.reach(next, search, g, current)) {
+                    continue;
+                }
+                open.push(next, key(g, heuristic.estimate(next, target)));
+
+                if (other.isReached(next, search) && g + other.getG(next) < best) {
+                    best = g + other.getG(next);
+                    meeting = next;
+                }
             }
         }
 
-        return neighbors;
+        if (meeting < 0) {
+            return null;
+        }
+        return joinPaths(context.nodes, context.nodesBack, meeting);
     }
 
-    private Point getLastVisited() {
-        if (!visited.isEmpty()) {
-            return visited.get(visited.size() - 1);
+    /**
+     * Joins the path from the start to the meeting point with the path from the meeting point to the goal.
+     *
+     * @param nodes Points reached from the start.
+     * @param nodesBack Points reached from the goal.
+     * @param meeting Point on both paths.
+     * @return The indexes on the path.
+     */
+    private static int[] joinPaths(final NodePages nodes, final NodePages nodesBack, final int meeting) {
+        int[] head = buildPath(nodes, meeting);
+        int length = head.length;
+        for (int i = nodesBack.getParent(meeting); i >= 0; i = nodesBack.getParent(i)) {
+            length++;
         }
-        return null;
+        int[] indexes = Arrays.copyOf(head, length);
+        int position = head.length;
+        for (int i = nodesBack.getParent(meeting); i >= 0; i = nodesBack.getParent(i)) {
+            indexes[position++] = i;
+        }
+        return indexes;
     }
 
     /**
-     * Gets the best point to be visited. The returned point is neighbor of given point.
+     * Greedy walk from the given point to the end. Each step goes to the best neighbor not visited yet; when there is
+     * none, the current point leaves the path and the walk goes back to the previous one. The path is kept on an
+     * explicit stack, so the depth of the walk is limited by the memory and not by the call stack.
      *
-     * @param point Point with neighbors to look for.
-     * @return The best point to visit by heuristic function.
+     * @param context Search state.
+     * @param start Index of the point to start the walk.
+     * @return If the end was reached - true, else - false.
      */
-    private Point getBestPoint(final Point point) {
-        List<Point> neighbors = getNeighbors(point);
-
-        if (!neighbors.isEmpty()) {
-            Point best = neighbors.get(0);
-
-            int distance = visited.size() * UNIT; // g(n)
-            double bestDistance = distance + end.distance(best); // f(n) = g(n) + h(n)
+    private boolean look(final SearchContext context, final int start) {
+        int p = start;
+        while (p >= 0) {
+            if (p == context.end) {
+                return true;
+            }
 
-            if (neighbors.size() > 1) {
-                for (int i = 1; i < neighbors.size(); i++) {
-                    Point p = neighbors.get(i);
+            if (!context.isVisited(p)) {
+                context.setVisited(p);
+                context.stack.add(p);
+            }
 
-                    double d = distance + end.distance(p);
+            int bestPoint = getBestPoint(context, p);
+            context.expanded++;
 
-                    if (d < bestDistance) {
-                        bestDistance = d;
-                        best = p;
-                    }
-                }
+            if (bestPoint < 0) { // no valid neighbor to visit
+                context.stack.pop(); // p is always the last visited point
+                bestPoint = context.stack.isEmpty() ? -1 : context.stack.peek();
             }
+            p = bestPoint;
+        }
+        return false;
+    }
 
-            return best;
+    /**
+     * Gets the best point to be visited. The returned point is neighbor of given point. The distance to the end is
+     * compared squared: the order is the same of the euclidean distance.
+     *
+     * @param context Search state.
+     * @param point Index of the point with neighbors to look for.
+     * @return The index of the best point to visit by heuristic function or -1 if there is no valid neighbor.
+     */
+    private int getBestPoint(final SearchContext context, final int point) {
+        int[] neighbors = context.neighbors;
+        cells.neighbors(point, cells.getX(point), cells.getY(point), cells.getZ(point), neighbors);
+        int ex = cells.getX(context.end), ey = cells.getY(context.end), ez = cells.getZ(context.end);
+
+        int best = -1;
+        long bestDistance = Long.MAX_VALUE;
+        for (int k : GREEDY_ORDER) {
+            int index = neighbors[k];
+            if (index < 0 || cells.isBlocked(index) || context.isVisited(index)) {
+                continue;
+            }
+            long dx = cells.getX(index) - ex, dy = cells.getY(index) - ey, dz = cells.getZ(index) - ez;
+            long d = dx * dx + dy * dy + dz * dz;
+            if (d < bestDistance) {
+                bestDistance = d;
+                best = index;
+            }
         }
-        // no valid neighbor
-        return null;
+        return best;
     }
 
     @Override
@@ -0,0 +1,389 @@
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * Grid storage kept on a file split in cubic tiles of {@link #TILE} points per axis. Only the tiles being used are
+ * kept in memory: a tile is read the first time one of its points is read and dropped when it is the least recently
+ * used one and the cache is full. The memory used by the storage is bounded by the size of the cache, not by the size
+ * of the grid.
+ * <p>
+ * The cache follows the clock algorithm: each tile read gets a mark, and the tile dropped is the next one without a
+ * mark, clearing the marks on the way. Hits only read the tile and set its mark, so many searches can read the grid
+ * at the same time without a lock.
+ * <p>
+ * The tiles are read with positional reads instead of being mapped: a mapped buffer is only unmapped when it is
+ * collected, so a cache that drops and maps tiles quickly runs out of mappings long before the garbage collector
+ * runs.
+ * <p>
+ * File format (little endian):
+ * <pre>
+ * int  magic     'GRT3'
+ * int  format    1
+ * int  dimension
+ * int  tile      64
+ * long seed
+ * ...  (unused, up to 4096 bytes)
+ * long tiles[t^3][4096]   t = ceil(dimension / 64), tile (tx, ty, tz) at (tx * t + ty) * t + tz
+ * </pre>
+ * Inside a tile, the word (x * 64 + y) holds the flags of the points (x, y, 0..63), one bit per z. The points after
+ * the end of the grid are free.
+ *
+ * @author João Bolsson (jvmarques@inf.ufsm.br)
+ * @version 2019, Jul 09.
+ */
+class TiledCells extends Cells {
+
+    private static final int MAGIC = 0x47525433; // GRT3
+
+    private static final int FORMAT = 1;
+
+    /**
+     * Number of points per axis on a tile: a line of a tile along z is a word.
+     */
+    static final int TILE = Long.SIZE;
+
+    /**
+     * Number of bytes of a tile.
+     */
+    private static final int TILE_BYTES = TILE * TILE * Long.BYTES;
+
+    /**
+     * Offset of the first tile on the file: the header takes a page, so the tiles are aligned to the pages.
+     */
+    private static final int HEADER_SIZE = 4096;
+
+    private final FileChannel channel;
+
+    private final long seed;
+
+    /**
+     * Number of tiles per axis.
+     */
+    private final int tiles;
+
+    /**
+     * Tiles in memory, by tile number, or null if the tile is not in memory.
+     */
+    private final AtomicReferenceArray<LongBuffer> loaded;
+
+    /**
+     * Tiles on the cache, by slot (-1 where empty), and the slot of each tile. Guarded by this object.
+     */
+    private final int[] slots, slotOf;
+
+    /**
+     * Marks of the tiles read since the clock hand passed by them.
+     */
+    private final boolean[] marked;
+
+    /**
+     * Next slot checked by the clock hand. Guarded by this object.
+     */
+    private int hand = 0;
+
+    private final LongAdder hits = new LongAdder();
+
+    private long misses = 0, evictions = 0;
+
+    private TiledCells(final int dimension, final long seed, final FileChannel channel, final int capacity) {
+        super(dimension);
+        this.seed = seed;
+        this.channel = channel;
+        this.tiles = (dimension + TILE - 1) / TILE;
+        int count = tiles * tiles * tiles;
+        loaded = new AtomicReferenceArray<>(count);
+        marked = new boolean[count];
+        slotOf = new int[count];
+        Arrays.fill(slotOf, -1);
+        slots = new int[Math.max(1, Math.min(capacity, count))];
+        Arrays.fill(slots, -1);
+    }
+
+    /**
+     * Opens a tiled grid file. The file stays open while the storage is used. Changes on the points (setBlocked) stay
+     * in this process: the file is never written, and a tile changed is kept in memory from then on.
+     *
+     * @param file Tiled grid file.
+     * @param capacity Maximum number of tiles in memory at the same time, not counting the tiles changed.
+     * @return The grid storage.
+     * @throws IOException If the file can not be read or is not a tiled grid file.
+     */
+    static TiledCells open(final File file, final int capacity) throws IOException {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid number of tiles: " + capacity);
+        }
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException(file + " is not a tiled grid file");
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            read(channel, header, 0);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != FORMAT || header.getInt(12) != TILE) {
+                throw new IOException(file + " is not a tiled grid file");
+            }
+            int dimension = header.getInt(8);
+            long seed = header.getLong(16);
+            if (dimension < 0 || length(dimension) != channel.size()) {
+                throw new IOException(file + " is truncated or corrupted");
+            }
+            return new TiledCells(dimension, seed, channel, capacity);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a tiled grid file, one tile at a time and in parallel: the grid is never kept in memory, so a file can be
+     * written for a grid bigger than the memory.
+     *
+     * @param file File to write (replaced if it exists).
+     * @param dimension Number of points per axis.
+     * @param seed Seed of the grid.
+     * @param blocked Tells if the point at each index is blocked.
+     * @throws IOException If the file can not be written.
+     */
+    static void write(final File file, final int dimension, final long seed, final IntPredicate blocked)
+            throws IOException {
+        long size = (long) dimension * dimension * dimension;
+        if (dimension < 0 || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid grid dimension: " + dimension);
+        }
+        int tiles = (dimension + TILE - 1) / TILE;
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            try {
+                IntStream.range(0, tiles * tiles * tiles).parallel().forEach(tile -> {
+                    ByteBuffer buffer = ByteBuffer.allocate(TILE_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                    LongBuffer words = buffer.asLongBuffer();
+                    int x0 = tile / tiles / tiles * TILE;
+                    int y0 = tile / tiles % tiles * TILE;
+                    int z0 = tile % tiles * TILE;
+                    int zEnd = Math.min(TILE, dimension - z0);
+                    for (int x = 0; x < TILE && x0 + x < dimension; x++) {
+                        for (int y = 0; y < TILE && y0 + y < dimension; y++) {
+                            int first = ((x0 + x) * dimension + y0 + y) * dimension + z0;
+                            long bits = 0L;
+                            for (int z = 0; z < zEnd; z++) {
+                                if (blocked.test(first + z)) {
+                                    bits |= 1L << z;
+                                }
+                            }
+                            words.put(x * TILE + y, bits);
+                        }
+                    }
+                    try {
+                        write(channel, buffer, offset(tile));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(0, MAGIC);
+            header.putInt(4, FORMAT);
+            header.putInt(8, dimension);
+            header.putInt(12, TILE);
+            header.putLong(16, seed);
+            write(channel, header, 0);
+        }
+    }
+
+    /**
+     * @return Size of the tiled grid file of the given dimension, in bytes.
+     */
+    private static long length(final int dimension) {
+        long tiles = (dimension + TILE - 1) / TILE;
+        return HEADER_SIZE + tiles * tiles * tiles * TILE_BYTES;
+    }
+
+    /**
+     * @return Position of a tile on the file.
+     */
+    private static long offset(final int tile) {
+        return HEADER_SIZE + (long) tile * TILE_BYTES;
+    }
+
+    /**
+     * Fills a buffer from the given position of a file. Positional reads and writes can be made by many threads on the
+     * same channel at the same time.
+     */
+    private static void read(final FileChannel channel, final ByteBuffer buffer, final long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of the tiled grid file");
+            }
+        }
+        buffer.flip();
+    }
+
+    private static void write(final FileChannel channel, final ByteBuffer buffer, final long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    /**
+     * @return The seed saved on the file.
+     */
+    long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return Number of points read from a tile already in memory.
+     */
+    long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return Number of tiles read from the file.
+     */
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return Number of tiles dropped from the cache to read others.
+     */
+    synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Gets a tile, reading it if needed.
+     *
+     * @param tile Tile number.
+     * @return The words of the tile.
+     */
+    private LongBuffer tile(final int tile) {
+        LongBuffer words = loaded.get(tile);
+        if (words != null) {
+            hits.increment();
+            if (!marked[tile]) {
+                marked[tile] = true;
+            }
+            return words;
+        }
+        return load(tile);
+    }
+
+    private synchronized LongBuffer load(final int tile) {
+        LongBuffer words = loaded.get(tile);
+        if (words != null) { // read by another thread meanwhile
+            hits.increment();
+            return words;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(TILE_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            read(channel, buffer, offset(tile));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        words = buffer.asLongBuffer();
+        misses++;
+
+        // the clock hand looks for an empty slot or a tile without a mark
+        while (slots[hand] >= 0 && marked[slots[hand]]) {
+            marked[slots[hand]] = false;
+            hand = (hand + 1) % slots.length;
+        }
+        int old = slots[hand];
+        if (old >= 0) {
+            loaded.set(old, null); // the searches still reading it keep their reference
+            slotOf[old] = -1;
+            evictions++;
+        }
+        slots[hand] = tile;
+        slotOf[tile] = hand;
+        marked[tile] = true;
+        hand = (hand + 1) % slots.length;
+        loaded.set(tile, words);
+        return words;
+    }
+
+    /**
+     * Keeps a tile in memory from now on, out of the cache: its changes are not written on the file.
+     */
+    private synchronized LongBuffer pin(final int tile) {
+        LongBuffer words = tile(tile);
+        int slot = slotOf[tile];
+        if (slot >= 0) {
+            slots[slot] = -1;
+            slotOf[tile] = -1;
+        }
+        return words;
+    }
+
+    private int tileOf(final int x, final int y, final int z) {
+        return (x / TILE * tiles + y / TILE) * tiles + z / TILE;
+    }
+
+    @Override
+    boolean isBlocked(final int index) {
+        int x = getX(index), y = getY(index), z = getZ(index);
+        long word = tile(tileOf(x, y, z)).get(x % TILE * TILE + y % TILE);
+        return (word & (1L << z)) != 0;
+    }
+
+    /**
+     * Gets the blocked flags of 64 sequential points, joined from the lines of the tiles they belong to.
+     */
+    @Override
+    long getBlockedWord(final int word) {
+        long first = (long) word * Long.SIZE;
+        int end = (int) Math.min(first + Long.SIZE, size());
+        int dimension = getDimension();
+        long bits = 0L;
+        for (int index = (int) first; index < end; ) {
+            int x = getX(index), y = getY(index), z = getZ(index);
+            int count = Math.min(end - index, Math.min(dimension - z, TILE - z % TILE));
+            long line = tile(tileOf(x, y, z)).get(x % TILE * TILE + y % TILE) >>> (z % TILE);
+            if (count < Long.SIZE) {
+                line &= (1L << count) - 1;
+            }
+            bits |= line << (index - first);
+            index += count;
+        }
+        return bits;
+    }
+
+    @Override
+    protected void writeWord(final int word, final long bits) {
+        long first = (long) word * Long.SIZE;
+        int end = (int) Math.min(first + Long.SIZE, size());
+        int dimension = getDimension();
+        for (int index = (int) first; index < end; ) {
+            int x = getX(index), y = getY(index), z = getZ(index);
+            int count = Math.min(end - index, Math.min(dimension - z, TILE - z % TILE));
+            long mask = (count < Long.SIZE ? (1L << count) - 1 : -1L) << (z % TILE);
+            LongBuffer words = pin(tileOf(x, y, z));
+            int position = x % TILE * TILE + y % TILE;
+            long line = (bits >>> (index - first) << (z % TILE)) & mask;
+            words.put(position, words.get(position) & ~mask | line);
+            index += count;
+        }
+    }
+
+}